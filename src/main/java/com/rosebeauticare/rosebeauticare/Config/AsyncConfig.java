@@ -0,0 +1,70 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    public static final String FILE_LOOKUP_EXECUTOR = "fileLookupExecutor";
+    public static final String UPLOAD_EXECUTOR = "uploadExecutor";
+    // The name Spring Boot's MVC configuration looks up for async request processing; Boot only creates
+    // its own when no Executor bean exists, which the pools here rule out
+    public static final String MVC_ASYNC_EXECUTOR = "applicationTaskExecutor";
+
+    // Dedicated pool for GridFS metadata lookups fanned out by request handlers. Bounded on both threads
+    // and queue; a rejected task fails its own branch instead of blocking the request thread.
+    @Bean(name = FILE_LOOKUP_EXECUTOR)
+    public ThreadPoolTaskExecutor fileLookupExecutor(
+            @Value("${async.file-lookup.pool-size:8}") int poolSize,
+            @Value("${async.file-lookup.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("file-lookup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    // Parallel GridFS writes for multi-file uploads. When saturated the submitting request thread runs
+    // the write itself, which slows that request down instead of failing it.
+    @Bean(name = UPLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor uploadExecutor(
+            @Value("${async.upload.pool-size:4}") int poolSize,
+            @Value("${async.upload.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs async MVC work, i.e. the streamed exports (StreamingResponseBody). Without it MVC falls back to
+    // a SimpleAsyncTaskExecutor, one new thread per request. An export past the queue is rejected with
+    // an error instead of waiting, since each one may run for up to spring.mvc.async.request-timeout.
+    @Bean(name = MVC_ASYNC_EXECUTOR)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(
+            @Value("${async.mvc.pool-size:4}") int poolSize,
+            @Value("${async.mvc.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
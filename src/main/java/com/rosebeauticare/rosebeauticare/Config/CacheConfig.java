@@ -0,0 +1,71 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final String STAFF_BY_ID = "staffById";
+    public static final String STAFF_BY_USERNAME = "staffByUsername";
+    public static final String STAFF_BY_EMAIL = "staffByEmail";
+    public static final String STAFF_BY_PHONE_NUMBER = "staffByPhoneNumber";
+    public static final String USER_DETAILS = "userDetails";
+    public static final String STAFF_DETAILS = "staffDetails";
+    public static final String STAFF_PHOTOS = "staffPhotos";
+    public static final String GRIDFS_FILES = "gridFsFiles";
+    public static final String IMAGE_DERIVATIVES = "imageDerivatives";
+
+    public static final List<String> CACHE_NAMES = List.of(
+            STAFF_BY_ID, STAFF_BY_USERNAME, STAFF_BY_EMAIL, STAFF_BY_PHONE_NUMBER,
+            USER_DETAILS, STAFF_DETAILS, STAFF_PHOTOS, GRIDFS_FILES, IMAGE_DERIVATIVES);
+
+    private static final String DEFAULT_SPEC = "maximumSize=500,expireAfterWrite=10m";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        String defaultSpec = environment.getProperty("cache.default-spec", DEFAULT_SPEC);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Caches not listed in CACHE_NAMES fall back to the default spec
+        cacheManager.setCaffeine(Caffeine.from(defaultSpec).recordStats());
+        for (String name : CACHE_NAMES) {
+            String spec = environment.getProperty("cache.specs." + name, defaultSpec);
+            cacheManager.registerCustomCache(name, Caffeine.from(spec).recordStats().build());
+            logger.info("Registered cache {} with spec: {}", name, spec);
+        }
+        return cacheManager;
+    }
+
+    public static Map<String, Object> describe(Cache cache) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            result.put("type", cache.getClass().getSimpleName());
+            return result;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        result.put("size", nativeCache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
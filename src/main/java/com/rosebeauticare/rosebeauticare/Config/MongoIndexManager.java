@@ -0,0 +1,432 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import com.mongodb.MongoCommandException;
+import com.rosebeauticare.rosebeauticare.Service.FileCategory;
+import com.rosebeauticare.rosebeauticare.Service.UploadSessionService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Every index the application relies on, per collection, next to the queries they exist for. All of
+// them are ensured in the background once the application is ready (createIndex is a no-op for an
+// index that already exists); code that cannot run without its indexes, such as the TTL expiry of
+// upload sessions, also calls ensure() for its collection before first use. Writes that rely on a
+// unique index for uniqueness ask uniqueIndexesReady() first and check with lookups while it is false.
+// A collection whose unique indexes could not be created is only retried by retryMissingUniqueIndexes(),
+// on unique-retry-cron or from the admin API, never from a request.
+// findCollectionScans() explains each declared query and reports those the planner would answer with
+// a collection scan.
+@Component
+public class MongoIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    // Unique indexes; their names identify the field in duplicate key errors
+    public static final String CUSTOMER_NAME_INDEX = "name_unique";
+    public static final String CUSTOMER_PHONE_INDEX = "phonenumber_unique";
+    public static final String CUSTOMER_ALTERNATE_PHONE_INDEX = "alternatePhoneNumber_unique";
+    public static final String STAFF_EMAIL_INDEX = "email_unique";
+    public static final String STAFF_USERNAME_INDEX = "usernameNormalized_unique";
+    public static final String STAFF_PHONE_INDEX = "phonenumber_unique";
+
+    private static final Pattern DUPLICATE_KEY_INDEX = Pattern.compile("index: (\\S+) dup key");
+    // IndexOptionsConflict, IndexKeySpecsConflict
+    private static final Set<Integer> INDEX_CONFLICT_CODES = Set.of(85, 86);
+
+    private static final Map<String, List<Index>> INDEXES = new LinkedHashMap<>();
+    // Indexes that were declared once and are dropped where they still exist
+    private static final Map<String, List<String>> RETIRED = new LinkedHashMap<>();
+    private static final List<QueryShape> QUERIES = new ArrayList<>();
+
+    static {
+        declare("customers",
+                unique("phonenumber", CUSTOMER_PHONE_INDEX),
+                unique("alternatePhoneNumber", CUSTOMER_ALTERNATE_PHONE_INDEX),
+                unique("name", CUSTOMER_NAME_INDEX),
+                new Index().on("name", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("name_id"));
+        declare("staff",
+                unique("email", STAFF_EMAIL_INDEX),
+                // Case-insensitive uniqueness and exact-match login lookups
+                unique("usernameNormalized", STAFF_USERNAME_INDEX),
+                unique("phonenumber", STAFF_PHONE_INDEX),
+                // Anchored case-insensitive lookups of staff saved before usernameNormalized existed scan
+                // this index rather than the documents
+                asc("username"),
+                asc("photo").sparse(),
+                asc("documentphoto").sparse());
+        // Superseded by usernameNormalized_unique
+        retire("staff", "username_unique");
+        declare("orders",
+                asc("customerId"),
+                asc("images.fileId"),
+                // Date-range exports
+                new Index().on("orderDate", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("orderDate_id"));
+        declare("measurements",
+                // Also serves lookups by customerId alone
+                new Index().on("customerId", Sort.Direction.ASC).on("serviceType", Sort.Direction.ASC)
+                        .named("customerId_serviceType"));
+        declare(UploadSessionService.SESSIONS_COLLECTION,
+                asc("expiresAt").expire(Duration.ZERO).named("expiresAt_ttl"),
+                asc("fileId").sparse());
+        declare(UploadSessionService.CHUNKS_COLLECTION,
+                asc("expiresAt").expire(Duration.ZERO).named("expiresAt_ttl"),
+                new Index().on("sessionId", Sort.Direction.ASC).on("n", Sort.Direction.ASC).named("sessionId_n"));
+        for (String bucket : buckets()) {
+            declare(bucket + ".files",
+                    asc("metadata.sha256").named("metadata_sha256"),
+                    asc("metadata.owners").named("metadata_owners"),
+                    new Index().on("metadata.derivativeOf", Sort.Direction.ASC)
+                            .on("metadata.derivativeSize", Sort.Direction.ASC).named("metadata_derivativeOf"),
+                    asc("metadata.originalOf").sparse().named("metadata_originalOf"));
+        }
+
+        query("customers", "findByPhonenumber", new Document("phonenumber", "+910000000000"), null);
+        query("customers", "findByAlternatePhoneNumber", new Document("alternatePhoneNumber", "+910000000000"), null);
+        query("customers", "findByName", new Document("name", "x"), null);
+        query("customers", "page by name", new Document("name", new Document("$gt", "x")),
+                new Document("name", 1).append("_id", 1));
+        // CustomerService search while the in-memory search index is not ready
+        query("customers", "search fallback", new Document("$or", List.of(
+                new Document("name", new Document("$regex", "\\Qx\\E").append("$options", "i")),
+                new Document("phonenumber", new Document("$regex", "^\\+91\\Q98\\E")),
+                new Document("alternatePhoneNumber", new Document("$regex", "^\\+91\\Q98\\E")))),
+                new Document("name", 1));
+        query("staff", "findByEmail", new Document("email", "x"), null);
+        query("staff", "findByUsernameNormalized", new Document("usernameNormalized", "x"), null);
+        query("staff", "findByUsernameMatching",
+                new Document("username", new Document("$regex", "^x$").append("$options", "i")), null);
+        query("staff", "findByPhoneNumber", new Document("phonenumber", "+910000000000"), null);
+        query("staff", "photo references", new Document("photo", new Document("$in", List.of("x"))), null);
+        query("orders", "findByCustomerId", new Document("customerId", "x"), null);
+        query("orders", "image references", new Document("images.fileId", new Document("$in", List.of("x"))), null);
+        query("orders", "export by orderDate", new Document("orderDate", new Document("$gte", new Date(0))),
+                new Document("orderDate", 1).append("_id", 1));
+        query("measurements", "findByCustomerId", new Document("customerId", "x"), null);
+        query("measurements", "findByCustomerIdAndServiceType",
+                new Document("customerId", "x").append("serviceType", "x"), null);
+        query("uploadSessions", "findFirstByFileIdAndCreatedByAndStatus",
+                new Document("fileId", "x").append("createdBy", "x").append("status", "COMPLETE"), null);
+        query(UploadSessionService.SESSIONS_COLLECTION, "completed sessions of files",
+                new Document("fileId", new Document("$in", List.of("x"))).append("status", "COMPLETE")
+                        .append("expiresAt", new Document("$gt", new Date(0))), null);
+        query(UploadSessionService.CHUNKS_COLLECTION, "chunks of a session", new Document("sessionId", "x"),
+                new Document("n", 1));
+        for (String bucket : buckets()) {
+            query(bucket + ".files", "findByHash", new Document("metadata.sha256", "x"), null);
+            query(bucket + ".files", "findDerivative",
+                    new Document("metadata.derivativeOf", "x").append("metadata.derivativeSize", "small"), null);
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.indexes.ensure-on-startup:true}")
+    private boolean ensureOnStartup;
+
+    // Collections whose declared indexes have been created and whose unique indexes were seen to exist
+    private final Set<String> ensured = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<String>> missingUnique = new ConcurrentHashMap<>();
+
+    public static final class QueryShape {
+        private final String collection;
+        private final String name;
+        private final Document filter;
+        private final Document sort;
+
+        private QueryShape(String collection, String name, Document filter, Document sort) {
+            this.collection = collection;
+            this.name = name;
+            this.filter = filter;
+            this.sort = sort;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return collection + " " + name + " " + filter.toJson() + (sort != null ? " sort " + sort.toJson() : "");
+        }
+    }
+
+    // In the background, so a slow or unreachable cluster does not hold up startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureAllOnStartup() {
+        if (!ensureOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(this::ensureAll, "mongo-indexes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void ensureAll() {
+        long start = System.nanoTime();
+        for (String collection : INDEXES.keySet()) {
+            try {
+                ensure(collection);
+            } catch (DataAccessResourceFailureException e) {
+                // Nothing else will succeed either; collections are retried on first use
+                logger.error("Cannot reach MongoDB to ensure indexes: {}", e.getMessage());
+                return;
+            }
+        }
+        logger.info("Ensured indexes on {} collections in {} ms", INDEXES.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        if (!missingUnique.isEmpty()) {
+            logger.error("Unique indexes missing after startup: {}; uniqueness falls back to lookups until "
+                    + "the duplicates are removed", missingUnique);
+        }
+    }
+
+    // Creates the declared indexes of one collection, once per process. A declared index that conflicts
+    // with an existing one is logged and skipped; only an unreachable cluster is rethrown. The collection
+    // only counts as ensured once all its unique indexes exist. After an attempt that left one missing
+    // this returns without trying again: every attempt drops and rebuilds the conflicting index, which
+    // must not happen on a request thread.
+    public void ensure(String collection) {
+        if (ensured.contains(collection) || missingUnique.containsKey(collection)) {
+            return;
+        }
+        attempt(collection);
+    }
+
+    // Tries again for every collection whose unique indexes were missing after the last attempt, and
+    // returns those still missing
+    @Scheduled(cron = "${mongo.indexes.unique-retry-cron:0 0 * * * *}")
+    public synchronized Map<String, List<String>> retryMissingUniqueIndexes() {
+        for (String collection : List.copyOf(missingUnique.keySet())) {
+            try {
+                attempt(collection);
+            } catch (DataAccessResourceFailureException e) {
+                logger.error("Cannot reach MongoDB to retry unique indexes: {}", e.getMessage());
+                break;
+            }
+        }
+        return getMissingUniqueIndexes();
+    }
+
+    private void attempt(String collection) {
+        IndexOperations indexOps = mongoTemplate.indexOps(collection);
+        for (String name : RETIRED.getOrDefault(collection, Collections.emptyList())) {
+            if (indexOps.getIndexInfo().stream().anyMatch(info -> name.equals(info.getName()))) {
+                indexOps.dropIndex(name);
+                logger.info("Dropped retired index {} on {}", name, collection);
+            }
+        }
+        for (Index index : INDEXES.getOrDefault(collection, Collections.emptyList())) {
+            try {
+                indexOps.ensureIndex(index);
+            } catch (DataAccessResourceFailureException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (isIndexConflict(e)) {
+                    replaceIndex(collection, indexOps, index);
+                } else {
+                    logger.error("Failed to ensure index {} on {}: {}", index.getIndexKeys().toJson(), collection,
+                            e.getMessage());
+                }
+            }
+        }
+        List<String> missing = missingUniqueIndexes(collection, indexOps);
+        if (!missing.isEmpty()) {
+            missingUnique.put(collection, missing);
+            logger.error("Unique indexes {} on {} do not exist; uniqueness is checked with lookups until they do",
+                    missing, collection);
+            return;
+        }
+        missingUnique.remove(collection);
+        ensured.add(collection);
+        logger.debug("Ensured indexes on {}", collection);
+    }
+
+    // Whether every unique index declared for the collection is known to exist, trying to create them
+    // first if that has not been tried yet. False also when the cluster cannot be reached to find out.
+    public boolean uniqueIndexesReady(String collection) {
+        try {
+            ensure(collection);
+        } catch (DataAccessResourceFailureException e) {
+            logger.warn("Cannot reach MongoDB to ensure indexes on {}: {}", collection, e.getMessage());
+            return false;
+        }
+        return ensured.contains(collection);
+    }
+
+    // Declared unique indexes missing from the last attempt, by collection
+    public Map<String, List<String>> getMissingUniqueIndexes() {
+        return Map.copyOf(missingUnique);
+    }
+
+    private static List<String> missingUniqueIndexes(String collection, IndexOperations indexOps) {
+        List<String> declared = new ArrayList<>();
+        for (Index index : INDEXES.getOrDefault(collection, Collections.emptyList())) {
+            Document options = index.getIndexOptions();
+            if (Boolean.TRUE.equals(options.get("unique"))) {
+                declared.add(options.getString("name"));
+            }
+        }
+        if (declared.isEmpty()) {
+            return declared;
+        }
+        Set<String> existing = new HashSet<>();
+        for (IndexInfo info : indexOps.getIndexInfo()) {
+            if (info.isUnique()) {
+                existing.add(info.getName());
+            }
+        }
+        declared.removeAll(existing);
+        return declared;
+    }
+
+    // An index on the same keys exists with other options, e.g. a plain index that is now declared
+    // unique: drop it and create the declared one. If that fails (typically because existing documents
+    // hold duplicates) the old index is put back, so queries keep their index until the data is fixed.
+    private void replaceIndex(String collection, IndexOperations indexOps, Index index) {
+        Document keys = index.getIndexKeys();
+        Document existing = null;
+        for (Document candidate : mongoTemplate.getCollection(collection).listIndexes()) {
+            if (keys.equals(candidate.get("key", Document.class))) {
+                existing = candidate;
+                break;
+            }
+        }
+        if (existing == null) {
+            logger.error("Index {} on {} conflicts with an existing index", keys.toJson(), collection);
+            return;
+        }
+        String existingName = existing.getString("name");
+        indexOps.dropIndex(existingName);
+        try {
+            indexOps.ensureIndex(index);
+            logger.info("Replaced index {} on {} with {}", existingName, collection, index.getIndexOptions().toJson());
+        } catch (RuntimeException e) {
+            logger.error("Failed to replace index {} on {}, restoring it: {}", existingName, collection, e.getMessage());
+            existing.remove("v");
+            existing.remove("ns");
+            mongoTemplate.getDb().runCommand(new Document("createIndexes", collection).append("indexes", List.of(existing)));
+        }
+    }
+
+    private static boolean isIndexConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoCommandException
+                    && INDEX_CONFLICT_CODES.contains(((MongoCommandException) cause).getErrorCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Name of the unique index a duplicate key error came from, or null if it cannot be told
+    public static String violatedIndex(DuplicateKeyException e) {
+        return violatedIndex(e.getMessage());
+    }
+
+    // Same, from the message of a single write error, as reported per document by a bulk write
+    public static String violatedIndex(String message) {
+        Matcher matcher = DUPLICATE_KEY_INDEX.matcher(String.valueOf(message));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    public static List<QueryShape> getQueries() {
+        return Collections.unmodifiableList(QUERIES);
+    }
+
+    // Explains every declared query and returns those whose winning plan contains a COLLSCAN
+    public List<QueryShape> findCollectionScans() {
+        List<QueryShape> scans = new ArrayList<>();
+        for (QueryShape query : QUERIES) {
+            Document find = new Document("find", query.collection).append("filter", query.filter);
+            if (query.sort != null) {
+                find.append("sort", query.sort);
+            }
+            Document explain = mongoTemplate.getDb()
+                    .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+            Document planner = explain.get("queryPlanner", Document.class);
+            if (planner != null && containsStage(planner.get("winningPlan"), "COLLSCAN")) {
+                logger.warn("Query would scan the whole collection: {}", query);
+                scans.add(query);
+            }
+        }
+        return scans;
+    }
+
+    // Plans nest their input stages (inputStage, inputStages, queryPlan) to any depth
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Document) {
+            Document document = (Document) plan;
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (plan instanceof List<?>) {
+            return ((List<?>) plan).stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+
+    private static void declare(String collection, Index... indexes) {
+        INDEXES.computeIfAbsent(collection, key -> new ArrayList<>()).addAll(List.of(indexes));
+    }
+
+    private static void retire(String collection, String name) {
+        RETIRED.computeIfAbsent(collection, key -> new ArrayList<>()).add(name);
+    }
+
+    private static void query(String collection, String name, Document filter, Document sort) {
+        QUERIES.add(new QueryShape(collection, name, filter, sort));
+    }
+
+    // Partial, so documents without the field (an optional phone number) do not collide with each other
+    private static Index unique(String field, String name) {
+        return asc(field).unique().named(name)
+                .partial(PartialIndexFilter.of(new Document(field, new Document("$exists", true))));
+    }
+
+    private static Index asc(String field) {
+        return new Index().on(field, Sort.Direction.ASC);
+    }
+
+    private static List<String> buckets() {
+        List<String> buckets = new ArrayList<>();
+        for (FileCategory category : FileCategory.values()) {
+            buckets.add(category.getBucket());
+        }
+        buckets.add(FileCategory.LEGACY_BUCKET);
+        return buckets;
+    }
+}
@@ -1,10 +1,20 @@
 package com.rosebeauticare.rosebeauticare.Controller;
 
+import com.rosebeauticare.rosebeauticare.Config.CacheConfig;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
 import com.rosebeauticare.rosebeauticare.DTO.AddStaffResponseDTO;
 import com.rosebeauticare.rosebeauticare.Model.Staff;
+import com.rosebeauticare.rosebeauticare.Security.VerifiedTokenCache;
+import com.rosebeauticare.rosebeauticare.Service.DuplicateFieldException;
+import com.rosebeauticare.rosebeauticare.Service.FileContentCache;
+import com.rosebeauticare.rosebeauticare.Service.GridFsGarbageCollector;
+import com.rosebeauticare.rosebeauticare.Service.GridFsGcReport;
+import com.rosebeauticare.rosebeauticare.Service.MissingFileCache;
 import com.rosebeauticare.rosebeauticare.Service.StaffService;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,6 +25,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -26,6 +38,24 @@ public class AdminController {
     @Autowired
     private StaffService staffService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private GridFsGarbageCollector gridFsGarbageCollector;
+
+    @Autowired
+    private MissingFileCache missingFileCache;
+
+    @Autowired
+    private FileContentCache fileContentCache;
+
+    @Autowired
+    private MongoIndexManager mongoIndexManager;
+
     private String calculateAge(String dateofbirth) {
         if (dateofbirth == null || dateofbirth.isEmpty()) {
             return null;
@@ -57,25 +87,17 @@ public class AdminController {
             @RequestPart(value = "documentType") @NotBlank(message = "Document type is required") String documentType,
             @RequestPart(value = "address", required = false) String address,
             @RequestPart(value = "photo", required = false) MultipartFile photo,
-            @RequestPart(value = "documentphoto", required = false) MultipartFile documentphoto) {
+            @RequestPart(value = "documentphoto", required = false) MultipartFile documentphoto,
+            @RequestPart(value = "photoFileId", required = false) String photoFileId,
+            @RequestPart(value = "documentphotoFileId", required = false) String documentphotoFileId) {
         try {
-            // Validate unique fields
-            if (staffService.getStaffByUsername(username) != null) {
-                logger.warn("Validation failed: Username already exists: {}", username);
-                return ResponseEntity.badRequest().body("Username already exists");
-            }
-            if (staffService.getStaffByEmail(email) != null) {
-                logger.warn("Validation failed: Email already exists: {}", email);
-                return ResponseEntity.badRequest().body("Email already exists");
-            }
+            // Username, email and phone number uniqueness is checked by StaffService (unique indexes, or
+            // lookups while those are missing). An alternate number must not be another staff member's
+            // primary number, which spans two fields, so that one is still checked here.
             if (!phonenumber.startsWith("+91") || phonenumber.length() != 13) {
                 logger.warn("Validation failed: Invalid phone number format: {}", phonenumber);
                 return ResponseEntity.badRequest().body("Phone number must start with +91 and be 10 digits");
             }
-            if (staffService.getStaffByPhoneNumber(phonenumber) != null) {
-                logger.warn("Validation failed: Phone number already exists: {}", phonenumber);
-                return ResponseEntity.badRequest().body("Phone number already exists");
-            }
             String normalizedAlternatePhone = (alternatephonenumber == null || alternatephonenumber.isEmpty()) ? "+91"
                     : alternatephonenumber;
             if (!normalizedAlternatePhone.equals("+91")) {
@@ -108,9 +130,13 @@ public class AdminController {
             staff.setJoineddate(joineddate);
             staff.setDocumentType(documentType);
 
-            Staff savedStaff = staffService.addStaff(staff, photo, documentphoto);
+            Staff savedStaff = staffService.addStaff(staff, photo, documentphoto, photoFileId,
+                    documentphotoFileId);
             logger.info("Staff added successfully: {}", savedStaff.getId());
             return ResponseEntity.ok(new AddStaffResponseDTO(savedStaff.getId(), "Staff added successfully"));
+        } catch (DuplicateFieldException e) {
+            logger.warn("Validation failed: {} ({})", e.getMessage(), e.getField());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Invalid input while adding staff: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
@@ -139,7 +165,9 @@ public class AdminController {
             @RequestPart(value = "address", required = false) String address,
             @RequestPart(value = "documentType", required = false) String documentType,
             @RequestPart(value = "photo", required = false) MultipartFile photo,
-            @RequestPart(value = "documentphoto", required = false) MultipartFile documentphoto) {
+            @RequestPart(value = "documentphoto", required = false) MultipartFile documentphoto,
+            @RequestPart(value = "photoFileId", required = false) String photoFileId,
+            @RequestPart(value = "documentphotoFileId", required = false) String documentphotoFileId) {
         try {
             Staff existingStaff = staffService.getStaffById(id);
             if (existingStaff == null) {
@@ -147,28 +175,12 @@ public class AdminController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Staff not found");
             }
 
-            // Validate unique fields
-            if (username != null && !username.equals(existingStaff.getUsername())) {
-                if (staffService.getStaffByUsername(username) != null) {
-                    logger.warn("Validation failed: Username already exists: {}", username);
-                    return ResponseEntity.badRequest().body("Username already exists");
-                }
-            }
-            if (email != null && !email.equals(existingStaff.getEmail())) {
-                if (staffService.getStaffByEmail(email) != null) {
-                    logger.warn("Validation failed: Email already exists: {}", email);
-                    return ResponseEntity.badRequest().body("Email already exists");
-                }
-            }
+            // Validate unique fields; a taken username is rejected by StaffService on save
             if (phonenumber != null && !phonenumber.equals(existingStaff.getPhonenumber())) {
                 if (!phonenumber.startsWith("+91") || phonenumber.length() != 13) {
                     logger.warn("Validation failed: Invalid phone number format: {}", phonenumber);
                     return ResponseEntity.badRequest().body("Phone number must start with +91 and be 10 digits");
                 }
-                if (staffService.getStaffByPhoneNumber(phonenumber) != null) {
-                    logger.warn("Validation failed: Phone number already exists: {}", phonenumber);
-                    return ResponseEntity.badRequest().body("Phone number already exists");
-                }
             }
             String normalizedAlternatePhone = alternatephonenumber != null ? alternatephonenumber
                     : existingStaff.getAlternatephonenumber();
@@ -207,9 +219,13 @@ public class AdminController {
             updatedStaff.setAddress(address);
             updatedStaff.setDocumentType(documentType);
 
-            Staff savedStaff = staffService.updateStaff(id, updatedStaff, photo, documentphoto);
+            Staff savedStaff = staffService.updateStaff(id, updatedStaff, photo, documentphoto,
+                    photoFileId, documentphotoFileId);
             logger.info("Staff updated successfully, ID: {}", id);
             return ResponseEntity.ok(new AddStaffResponseDTO(savedStaff.getId(), "Staff updated successfully"));
+        } catch (DuplicateFieldException e) {
+            logger.warn("Validation failed for staff ID: {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Invalid input for updating staff ID: {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
@@ -218,4 +234,56 @@ public class AdminController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/auth/token-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTokenCacheStats() {
+        return ResponseEntity.ok(verifiedTokenCache.getStats());
+    }
+
+    @GetMapping("/caches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                stats.put(name, CacheConfig.describe(cache));
+            }
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/gridfs/gc")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getGridFsGcReport() {
+        GridFsGcReport report = gridFsGarbageCollector.getLastReport();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("GridFS garbage collection has not run yet");
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // Recently requested fileIds that do not exist, most requested first, with the records pointing at them
+    @GetMapping("/gridfs/missing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getMissingGridFsFiles(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        Map<String, Object> result = new LinkedHashMap<>(missingFileCache.getStats());
+        result.put("entries", missingFileCache.getEntries(Math.max(1, Math.min(limit, 500))));
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/files/content-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getFileContentCacheStats() {
+        return ResponseEntity.ok(fileContentCache.getStats());
+    }
+
+    // Retries unique indexes that could not be created, e.g. once duplicates have been cleaned up, and
+    // returns those still missing
+    @PostMapping("/indexes/unique/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> retryUniqueIndexes() {
+        return ResponseEntity.ok(mongoIndexManager.retryMissingUniqueIndexes());
+    }
+}
@@ -4,6 +4,7 @@ import com.rosebeauticare.rosebeauticare.DTO.LoginDTO;
 import com.rosebeauticare.rosebeauticare.Model.Staff;
 import com.rosebeauticare.rosebeauticare.Security.JwtUtil;
 import com.rosebeauticare.rosebeauticare.Service.StaffService;
+import com.rosebeauticare.rosebeauticare.Service.StaffUsernames;
 import com.rosebeauticare.rosebeauticare.Service.UserDetailsServiceImpl;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -87,7 +88,7 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
-        String normalizedUsername = loginRequest.getUsername().toLowerCase();
+        String normalizedUsername = StaffUsernames.normalize(loginRequest.getUsername());
         logger.debug("Login attempt for username: {}", normalizedUsername);
         try {
             UserDetails userDetails = userDetailsService.loadUserByUsername(normalizedUsername);
@@ -97,7 +98,7 @@ public class AuthController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid security pin");
             }
 
-            Staff staff = staffService.getStaffByUsername(userDetails.getUsername().toLowerCase());
+            Staff staff = staffService.getStaffByUsername(userDetails.getUsername());
             if (staff == null) {
                 logger.warn("Staff not found for username: {}", normalizedUsername);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
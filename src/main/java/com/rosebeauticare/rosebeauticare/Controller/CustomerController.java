@@ -1,23 +1,31 @@
 package com.rosebeauticare.rosebeauticare.Controller;
 
+import com.rosebeauticare.rosebeauticare.DTO.CustomerImportReportDTO;
+import com.rosebeauticare.rosebeauticare.DTO.CustomerPageDTO;
 import com.rosebeauticare.rosebeauticare.DTO.CustomerResponseDTO;
 import com.rosebeauticare.rosebeauticare.Model.Customer;
+import com.rosebeauticare.rosebeauticare.Service.CustomerImportService;
 import com.rosebeauticare.rosebeauticare.Service.CustomerService;
+import com.rosebeauticare.rosebeauticare.Service.CustomerValidation;
+import com.rosebeauticare.rosebeauticare.Service.DuplicateFieldException;
+import com.rosebeauticare.rosebeauticare.Service.ExportService;
 import jakarta.validation.constraints.NotBlank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipException;
 
 @RestController
 @RequestMapping("/api/customer")
@@ -29,17 +37,8 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
-    private void validateCustomerSince(String customerSince) {
-        if (customerSince == null || customerSince.isEmpty()) {
-            return;
-        }
-        try {
-            LocalDate.parse(customerSince);
-        } catch (DateTimeParseException e) {
-            logger.error("Invalid date format for customerSince: {}", customerSince, e);
-            throw new IllegalArgumentException("Invalid date format for customerSince: " + customerSince);
-        }
-    }
+    @Autowired
+    private CustomerImportService customerImportService;
 
     @PostMapping(value = "", consumes = { "multipart/form-data" })
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -54,33 +53,21 @@ public class CustomerController {
             @RequestPart(value = "gender") @NotBlank(message = "Gender is required") String gender,
             @RequestPart(value = "customerSince") @NotBlank(message = "Customer since date is required") String customerSince) {
         try {
-            // Validate unique fields
-            if (customerService.getCustomerByName(name).isPresent()) {
-                logger.warn("Validation failed: Name already exists: {}", name);
-                return ResponseEntity.badRequest().body("Name already exists");
-            }
-            if (!phonenumber.startsWith("+91") || phonenumber.length() != 13) {
+            // Uniqueness of name and phone numbers is checked by the insert itself (unique indexes)
+            if (!CustomerValidation.isValidPhoneNumber(phonenumber)) {
                 logger.warn("Validation failed: Invalid phone number format: {}", phonenumber);
-                return ResponseEntity.badRequest().body("Phone number must start with +91 and be 10 digits");
-            }
-            if (customerService.getCustomerByPhonenumber(phonenumber).isPresent()) {
-                logger.warn("Validation failed: Phone number already exists: {}", phonenumber);
-                return ResponseEntity.badRequest().body("Phone number already exists");
+                return ResponseEntity.badRequest().body(CustomerValidation.PHONE_NUMBER_MESSAGE);
             }
             String normalizedAlternatePhone = (alternatePhoneNumber == null || alternatePhoneNumber.isEmpty()) ? null : alternatePhoneNumber;
             if (normalizedAlternatePhone != null) {
-                if (!normalizedAlternatePhone.startsWith("+91") || normalizedAlternatePhone.length() != 13) {
+                if (!CustomerValidation.isValidPhoneNumber(normalizedAlternatePhone)) {
                     logger.warn("Validation failed: Invalid alternate phone number format: {}", normalizedAlternatePhone);
-                    return ResponseEntity.badRequest().body("Alternate phone number must start with +91 and be 10 digits");
-                }
-                if (customerService.getCustomerByAlternatePhoneNumber(normalizedAlternatePhone).isPresent()) {
-                    logger.warn("Validation failed: Alternate phone number already exists: {}", normalizedAlternatePhone);
-                    return ResponseEntity.badRequest().body("Alternate phone number already exists");
+                    return ResponseEntity.badRequest().body(CustomerValidation.ALTERNATE_PHONE_NUMBER_MESSAGE);
                 }
             }
 
             // Validate customerSince date
-            validateCustomerSince(customerSince);
+            CustomerValidation.validateCustomerSince(customerSince);
 
             Customer customer = new Customer();
             customer.setName(name);
@@ -96,6 +83,9 @@ public class CustomerController {
             Customer savedCustomer = customerService.addCustomer(customer);
             logger.info("Customer added successfully: {}", savedCustomer.getId());
             return ResponseEntity.ok(new CustomerResponseDTO(savedCustomer.getId(), "Customer created successfully"));
+        } catch (DuplicateFieldException e) {
+            logger.warn("Validation failed: {} ({})", e.getMessage(), e.getField());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Invalid input while adding customer: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
@@ -122,39 +112,25 @@ public class CustomerController {
             Customer existingCustomer = customerService.getCustomerById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
 
-            // Validate unique fields
-            if (name != null && !name.equals(existingCustomer.getName())) {
-                if (customerService.getCustomerByName(name).isPresent()) {
-                    logger.warn("Validation failed: Name already exists: {}", name);
-                    return ResponseEntity.badRequest().body("Name already exists");
-                }
-            }
+            // Uniqueness of name and phone numbers is checked by the update itself (unique indexes)
             if (phonenumber != null && !phonenumber.equals(existingCustomer.getPhonenumber())) {
-                if (!phonenumber.startsWith("+91") || phonenumber.length() != 13) {
+                if (!CustomerValidation.isValidPhoneNumber(phonenumber)) {
                     logger.warn("Validation failed: Invalid phone number format: {}", phonenumber);
-                    return ResponseEntity.badRequest().body("Phone number must start with +91 and be 10 digits");
-                }
-                if (customerService.getCustomerByPhonenumber(phonenumber).isPresent()) {
-                    logger.warn("Validation failed: Phone number already exists: {}", phonenumber);
-                    return ResponseEntity.badRequest().body("Phone number already exists");
+                    return ResponseEntity.badRequest().body(CustomerValidation.PHONE_NUMBER_MESSAGE);
                 }
             }
             String normalizedAlternatePhone = alternatePhoneNumber != null ? alternatePhoneNumber : existingCustomer.getAlternatePhoneNumber();
             if (normalizedAlternatePhone != null && !normalizedAlternatePhone.equals(existingCustomer.getAlternatePhoneNumber())) {
                 if (!normalizedAlternatePhone.isEmpty()) {
-                    if (!normalizedAlternatePhone.startsWith("+91") || normalizedAlternatePhone.length() != 13) {
+                    if (!CustomerValidation.isValidPhoneNumber(normalizedAlternatePhone)) {
                         logger.warn("Validation failed: Invalid alternate phone number format: {}", normalizedAlternatePhone);
-                        return ResponseEntity.badRequest().body("Alternate phone number must start with +91 and be 10 digits");
-                    }
-                    if (customerService.getCustomerByAlternatePhoneNumber(normalizedAlternatePhone).isPresent()) {
-                        logger.warn("Validation failed: Alternate phone number already exists: {}", normalizedAlternatePhone);
-                        return ResponseEntity.badRequest().body("Alternate phone number already exists");
+                        return ResponseEntity.badRequest().body(CustomerValidation.ALTERNATE_PHONE_NUMBER_MESSAGE);
                     }
                 }
             }
 
             // Validate customerSince date
-            validateCustomerSince(customerSince);
+            CustomerValidation.validateCustomerSince(customerSince);
 
             Customer updatedCustomer = new Customer();
             updatedCustomer.setName(name);
@@ -174,6 +150,9 @@ public class CustomerController {
             Map<String, String> response = new HashMap<>();
             response.put("message", "Customer updated successfully");
             return ResponseEntity.ok(response);
+        } catch (DuplicateFieldException e) {
+            logger.warn("Validation failed for customer ID: {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("Invalid input for updating customer ID: {}: {}", id, e.getMessage());
             return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
@@ -203,6 +182,77 @@ public class CustomerController {
 
 
 
+    @GetMapping(value = "")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getCustomers(
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            CustomerPageDTO page = customerService.getCustomerPage(sort, cursor, limit);
+            logger.info("Fetched page of {} customers", page.getItems().size());
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid customer page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching customer page: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
+        }
+    }
+
+    @GetMapping(value = "/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> searchCustomers(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "type", required = false) String type) {
+        try {
+            List<Customer> customers = type == null || type.isEmpty()
+                    ? customerService.searchCustomers(query)
+                    : customerService.searchCustomersRealTime(query, type);
+            logger.info("Search for '{}' returned {} customers", query, customers.size());
+            return ResponseEntity.ok(customers);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid customer search: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error searching customers: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
+        }
+    }
+
+    // Bulk import for migrating existing records. The body is CSV with a header row (text/csv) or one JSON
+    // customer per line (application/x-ndjson), gzip-compressed if sent with Content-Encoding: gzip. Rows
+    // are validated as for a single add; the response lists every rejected row with the reason.
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> importCustomers(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) {
+        try {
+            boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"));
+            ExportService.Format format = csv ? ExportService.Format.CSV : ExportService.Format.NDJSON;
+            boolean gzip = "gzip".equalsIgnoreCase(contentEncoding);
+            CustomerImportReportDTO report = customerImportService.importCustomers(body, format, gzip);
+            logger.info("Imported {} of {} customers", report.getInserted(), report.getReceived());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid customer import: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (ZipException e) {
+            logger.error("Invalid gzip body in customer import: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: body is not valid gzip");
+        } catch (IllegalStateException e) {
+            logger.error("Customer import refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error importing customers: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
+        }
+    }
+
+    // Unpaged compatibility endpoint; see getCustomers, and /api/export/customers for full downloads
     @GetMapping(value = "/all")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<?> getAllCustomers() {
@@ -0,0 +1,71 @@
+package com.rosebeauticare.rosebeauticare.Controller;
+
+import com.rosebeauticare.rosebeauticare.Service.ExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Bulk downloads of customers, orders and measurements, streamed from the database as NDJSON or CSV.
+// Use these instead of the /all endpoints for full exports; those build the whole list in memory.
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private ExportService exportService;
+
+    // GET /api/export/orders?format=csv&fields=id,orderDate,customerName&from=2024-04-01&to=2025-03-31&gzip=true
+    @GetMapping("/{dataset}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> export(
+            @PathVariable String dataset,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+        ExportService.Dataset exportDataset;
+        ExportService.Format exportFormat;
+        List<String> exportFields;
+        try {
+            exportDataset = ExportService.Dataset.parse(dataset);
+            exportFormat = ExportService.Format.parse(format);
+            exportFields = exportService.resolveFields(exportDataset, fields);
+            exportService.checkRange(exportDataset, from, to);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        }
+
+        // Errors past this point surface as a truncated download, since the response is already committed
+        StreamingResponseBody body = out -> {
+            try {
+                exportService.export(exportDataset, exportFormat, exportFields, from, to, gzip, out);
+            } catch (Exception e) {
+                logger.error("Export of {} failed: {}", exportDataset.getCollection(), e.getMessage(), e);
+                throw e;
+            }
+        };
+        String filename = exportDataset.getCollection() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
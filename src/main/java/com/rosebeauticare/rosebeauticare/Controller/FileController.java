@@ -0,0 +1,213 @@
+package com.rosebeauticare.rosebeauticare.Controller;
+
+import com.rosebeauticare.rosebeauticare.Service.GridFsFileDescriptor;
+import com.rosebeauticare.rosebeauticare.Service.GridFsFileResource;
+import com.rosebeauticare.rosebeauticare.Service.GridFsService;
+import com.rosebeauticare.rosebeauticare.Service.ImageDerivativeService;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/files")
+public class FileController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileController.class);
+    // Private because every file is behind authentication
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+    @Autowired
+    private GridFsService gridFsService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    public static String fileUrl(String fileId) {
+        if (fileId == null || fileId.isEmpty()) {
+            return null;
+        }
+        return "/api/files/" + fileId;
+    }
+
+    public static String fileUrl(String fileId, ImageDerivativeService.Size size) {
+        String url = fileUrl(fileId);
+        return url != null && size != null ? url + "?size=" + size.getName() : url;
+    }
+
+    // Streams the GridFS chunks straight to the response instead of buffering the whole file.
+    // ?size=small|medium|large serves a thumbnail, generated and stored on first request.
+    @GetMapping("/{fileId}")
+    public ResponseEntity<?> getFile(
+            @PathVariable String fileId,
+            @RequestParam(value = "size", required = false) String sizeName,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest request) {
+        try {
+            if (!ObjectId.isValid(fileId)) {
+                logger.warn("Invalid ObjectId format for file ID: {}", fileId);
+                return ResponseEntity.badRequest().body("Invalid file ID format");
+            }
+
+            GridFsFileDescriptor file = gridFsService.describe(fileId);
+            if (file == null) {
+                logger.warn("File not found in GridFS for ID: {}", fileId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
+            }
+
+            if (sizeName != null) {
+                ImageDerivativeService.Size size = ImageDerivativeService.Size.parse(sizeName);
+                if (size == null) {
+                    logger.warn("Invalid size {} requested for file ID: {}", sizeName, fileId);
+                    return ResponseEntity.badRequest().body("Invalid size: " + sizeName);
+                }
+                // The derivative has its own ObjectId, so ETag and range handling below apply unchanged
+                file = imageDerivativeService.resolve(file, size);
+            }
+
+            if (rangeHeader != null) {
+                // Spring only answers If-None-Match / If-Modified-Since for 200 responses; a client whose
+                // copy is current gets a 304 rather than a range of it
+                if (request.checkNotModified(etag(file), lastModified(file))) {
+                    return null;
+                }
+                if (ifRangeMatches(file, ifRange)) {
+                    return getFileRange(file, rangeHeader);
+                }
+                // The part the client holds is of another version: send the whole file. As an
+                // InputStreamResource, which Spring does not cut down to the Range header itself.
+                logger.debug("If-Range {} does not match file ID: {}; serving the whole file", ifRange,
+                        file.getFileId());
+                return ResponseEntity.ok()
+                        .headers(fileHeaders(file))
+                        .contentLength(file.getLength())
+                        .body(new InputStreamResource(gridFsService.openStream(file)));
+            }
+
+            // GridFS files are immutable, so the ObjectId is a strong validator. Spring answers a matching
+            // If-None-Match / If-Modified-Since with 304 before the body is written, so no chunk is read.
+            logger.debug("Serving file ID: {}, length: {}", file.getFileId(), file.getLength());
+            return ResponseEntity.ok()
+                    .headers(fileHeaders(file))
+                    .contentLength(file.getLength())
+                    .body(new GridFsFileResource(file, gridFsService));
+        } catch (Exception e) {
+            logger.error("Error streaming file ID: {}", fileId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
+        }
+    }
+
+    // Serves a single byte range; the chunk stream starts reading at the chunk holding the first byte
+    private ResponseEntity<?> getFileRange(GridFsFileDescriptor file, String rangeHeader) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid Range header for file ID: {}: {}", file.getFileId(), rangeHeader);
+            return rangeNotSatisfiable(file, "Invalid range");
+        }
+        if (ranges.isEmpty()) {
+            return rangeNotSatisfiable(file, "Invalid range");
+        }
+        if (ranges.size() > 1) {
+            logger.warn("Multiple ranges requested for file ID: {}: {}", file.getFileId(), rangeHeader);
+            return rangeNotSatisfiable(file, "Multiple ranges are not supported");
+        }
+
+        long start;
+        long end;
+        try {
+            start = ranges.get(0).getRangeStart(file.getLength());
+            end = ranges.get(0).getRangeEnd(file.getLength());
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(file, "Invalid range");
+        }
+        if (start >= file.getLength() || end < start) {
+            return rangeNotSatisfiable(file, "Range not satisfiable");
+        }
+
+        long count = end - start + 1;
+        logger.debug("Serving bytes {}-{} of file ID: {}, length: {}", start, end, file.getFileId(), file.getLength());
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(fileHeaders(file))
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.getLength())
+                .contentLength(count)
+                .body(new GridFsFileResource(file, gridFsService, start, count));
+    }
+
+    // An If-Range validator is the ETag (strong only) or the exact Last-Modified date the client was sent
+    private boolean ifRangeMatches(GridFsFileDescriptor file, String ifRange) {
+        if (ifRange == null) {
+            return true;
+        }
+        String validator = ifRange.trim();
+        if (validator.startsWith("\"")) {
+            return validator.equals(etag(file));
+        }
+        if (validator.startsWith("W/") || file.getUploadDate() == null) {
+            return false;
+        }
+        try {
+            long date = ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return date == file.getUploadDate().getTime() / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private ResponseEntity<?> rangeNotSatisfiable(GridFsFileDescriptor file, String message) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + file.getLength())
+                .body(message);
+    }
+
+    private HttpHeaders fileHeaders(GridFsFileDescriptor file) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag(file));
+        if (file.getUploadDate() != null) {
+            headers.setLastModified(lastModified(file));
+        }
+        headers.setCacheControl(IMMUTABLE);
+        headers.setContentType(MediaType.parseMediaType(gridFsService.getContentType(file)));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentDisposition(contentDisposition(file));
+        return headers;
+    }
+
+    private String etag(GridFsFileDescriptor file) {
+        return "\"" + file.getFileId() + "\"";
+    }
+
+    private long lastModified(GridFsFileDescriptor file) {
+        return file.getUploadDate() != null ? file.getUploadDate().getTime() : -1;
+    }
+
+    private ContentDisposition contentDisposition(GridFsFileDescriptor file) {
+        if (file.getFilename() == null || file.getFilename().isEmpty()) {
+            return ContentDisposition.inline().build();
+        }
+        return ContentDisposition.inline().filename(file.getFilename()).build();
+    }
+}
@@ -27,9 +27,10 @@ public class OrderController {
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<?> createOrder(
             @RequestPart("order") Order order,
-            @RequestPart(value = "images", required = false) List<MultipartFile> images) {
+            @RequestPart(value = "images", required = false) List<MultipartFile> images,
+            @RequestParam(value = "imageFileIds", required = false) List<String> imageFileIds) {
         try {
-            Order savedOrder = orderService.createOrder(order, images);
+            Order savedOrder = orderService.createOrder(order, images, imageFileIds);
             logger.info("Order created successfully: {}", savedOrder.getId());
             return ResponseEntity.ok(new OrderResponseDTO(savedOrder.getId(), "Order created successfully"));
         } catch (IllegalArgumentException e) {
@@ -81,6 +82,7 @@ public class OrderController {
         }
     }
 
+    // Loads every order into memory; full downloads should use /api/export/orders
     @GetMapping("/customer/all")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<?> getAllOrders() {
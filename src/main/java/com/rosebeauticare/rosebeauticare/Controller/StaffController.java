@@ -4,6 +4,7 @@ import com.rosebeauticare.rosebeauticare.DTO.StaffDetailsDTO;
 import com.rosebeauticare.rosebeauticare.DTO.StaffListDTO;
 import com.rosebeauticare.rosebeauticare.DTO.StaffPhotoDTO;
 import com.rosebeauticare.rosebeauticare.Model.Staff;
+import com.rosebeauticare.rosebeauticare.Service.GridFsService;
 import com.rosebeauticare.rosebeauticare.Service.StaffService;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
@@ -17,8 +18,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/staff")
@@ -30,7 +33,8 @@ public class StaffController {
     private StaffService staffService;
 
     @GetMapping("/details")
-    @Cacheable(value = "staffDetails", key = "#id")
+    @Cacheable(value = "staffDetails", key = "#id",
+            unless = "!#result.statusCode.is2xxSuccessful() || #result.body.partial")
     public ResponseEntity<?> getStaffDetails(@RequestParam("id") String id) {
         try {
             if (id == null || id.isEmpty()) {
@@ -53,29 +57,15 @@ public class StaffController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Staff not found");
             }
 
-            // Fetch photo and document photo from GridFS
-            byte[] photo = staffService.getStaffPhoto(staff.getPhoto());
-            if (photo == null && staff.getPhoto() != null && !staff.getPhoto().isEmpty()) {
-                logger.warn("Photo not found in GridFS for staff ID: {}, photo ID: {}", id, staff.getPhoto());
-            }
-
-            String photoContentType = staffService.getContentType(staff.getPhoto());
-            if (photoContentType == null && staff.getPhoto() != null && !staff.getPhoto().isEmpty()) {
-                logger.warn("Content type not found for photo ID: {} of staff ID: {}", staff.getPhoto(), id);
-            }
-
-            byte[] documentphoto = staffService.getStaffPhoto(staff.getDocumentphoto());
-            if (documentphoto == null && staff.getDocumentphoto() != null && !staff.getDocumentphoto().isEmpty()) {
-                logger.warn("Document photo not found in GridFS for staff ID: {}, document photo ID: {}", id,
-                        staff.getDocumentphoto());
-            }
-
-            String documentPhotoContentType = staffService.getContentType(staff.getDocumentphoto());
-            if (documentPhotoContentType == null && staff.getDocumentphoto() != null
-                    && !staff.getDocumentphoto().isEmpty()) {
-                logger.warn("Content type not found for document photo ID: {} of staff ID: {}",
-                        staff.getDocumentphoto(), id);
-            }
+            // Resolve content types only; the bytes are served by the streaming file endpoint.
+            // Both lookups start before either is awaited, so the wait is the slower one, not the sum.
+            CompletableFuture<String> photoLookup = staffService.getContentTypeAsync(staff.getPhoto(), id);
+            CompletableFuture<String> documentPhotoLookup = staffService.getContentTypeAsync(staff.getDocumentphoto(),
+                    id);
+            String photoContentType = awaitContentType(photoLookup, "Photo", id, staff.getPhoto());
+            String documentPhotoContentType = awaitContentType(documentPhotoLookup, "Document photo", id,
+                    staff.getDocumentphoto());
+            boolean partial = photoLookup.isCompletedExceptionally() || documentPhotoLookup.isCompletedExceptionally();
 
             // Map to DTO
             StaffDetailsDTO staffDetailsDTO = new StaffDetailsDTO(
@@ -93,24 +83,39 @@ public class StaffController {
                     staff.getAddress(),
                     staff.getRole(),
                     staff.getDocumentType(),
-                    photo,
+                    photoContentType != null ? FileController.fileUrl(staff.getPhoto()) : null,
                     photoContentType,
-                    documentphoto,
+                    documentPhotoContentType != null ? FileController.fileUrl(staff.getDocumentphoto()) : null,
                     documentPhotoContentType);
+            staffDetailsDTO.setPartial(partial);
 
             logger.info("Fetched all details for staff ID: {}", id);
             return ResponseEntity.ok(staffDetailsDTO);
-        } catch (IOException e) {
-            logger.error("IO error fetching files from GridFS for staff ID: {}", id, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching files");
         } catch (Exception e) {
             logger.error("Unexpected error fetching staff details for ID: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
         }
     }
 
+    // A lookup that timed out or failed still yields the file URL, with the fallback content type;
+    // the file endpoint reports the real type when the client fetches it
+    private String awaitContentType(CompletableFuture<String> lookup, String label, String staffId, String fileId) {
+        String contentType;
+        try {
+            contentType = lookup.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("{} lookup failed for staff ID: {}, file ID: {}: {}", label, staffId, fileId, cause.toString());
+            return GridFsService.FALLBACK_CONTENT_TYPE;
+        }
+        if (contentType == null && fileId != null && !fileId.isEmpty()) {
+            logger.warn("{} not found in GridFS for staff ID: {}, file ID: {}", label, staffId, fileId);
+        }
+        return contentType;
+    }
+
     @GetMapping("/photo")
-    @Cacheable(value = "staffPhotos", key = "#id")
+    @Cacheable(value = "staffPhotos", key = "#id", unless = "!#result.statusCode.is2xxSuccessful()")
     public ResponseEntity<?> getStaffPhoto(@RequestParam("id") String id) {
         try {
             if (id == null || id.isEmpty()) {
@@ -133,31 +138,23 @@ public class StaffController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Staff not found");
             }
 
-            // Fetch photo from GridFS
-            byte[] photo = staffService.getStaffPhoto(staff.getPhoto());
-            if (photo == null && staff.getPhoto() != null && !staff.getPhoto().isEmpty()) {
+            // Resolve the photo's metadata; the bytes are served by the streaming file endpoint
+            String photoContentType = staffService.getContentType(staff.getPhoto(), id);
+            if (photoContentType == null && staff.getPhoto() != null && !staff.getPhoto().isEmpty()) {
                 logger.warn("Photo not found in GridFS for staff ID: {}, photo ID: {}", id, staff.getPhoto());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Photo not found in GridFS");
             }
 
-            String photoContentType = staffService.getContentType(staff.getPhoto());
-            if (photoContentType == null && staff.getPhoto() != null && !staff.getPhoto().isEmpty()) {
-                logger.warn("Content type not found for photo ID: {} of staff ID: {}", staff.getPhoto(), id);
-            }
-
             // Map to DTO
             StaffPhotoDTO staffPhotoDTO = new StaffPhotoDTO(
                     staff.getId(),
                     staff.getUsername(),
-                    photo,
+                    FileController.fileUrl(staff.getPhoto()),
                     photoContentType
             );
 
             logger.info("Fetched photo and details for staff ID: {}", id);
             return ResponseEntity.ok(staffPhotoDTO);
-        } catch (IOException e) {
-            logger.error("IO error fetching photo from GridFS for staff ID: {}", id, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching photo");
         } catch (Exception e) {
             logger.error("Unexpected error fetching staff photo for ID: {}", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
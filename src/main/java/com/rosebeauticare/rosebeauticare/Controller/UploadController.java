@@ -0,0 +1,109 @@
+package com.rosebeauticare.rosebeauticare.Controller;
+
+import com.rosebeauticare.rosebeauticare.DTO.UploadSessionDTO;
+import com.rosebeauticare.rosebeauticare.DTO.UploadSessionRequestDTO;
+import com.rosebeauticare.rosebeauticare.Service.UploadSessionService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Chunked upload sessions; a completed session's fileId can be passed to the staff and order
+// endpoints instead of the file itself
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadController.class);
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> createSession(@Valid @RequestBody UploadSessionRequestDTO request) {
+        try {
+            UploadSessionDTO session = uploadSessionService.create(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(session);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid upload session request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error creating upload session: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping(value = "/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> putChunk(@PathVariable String id, @PathVariable int index, @RequestBody byte[] data) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.putChunk(id, index, data));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid chunk {} for upload session {}: {}", index, id, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Rejected chunk {} for upload session {}: {}", index, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error storing chunk {} for upload session {}: {}", index, id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> getSession(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.getStatus(id));
+        } catch (IllegalArgumentException e) {
+            logger.error("Upload session {} not found: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error fetching upload session {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> completeSession(@PathVariable String id) {
+        try {
+            UploadSessionDTO session = uploadSessionService.complete(id);
+            logger.info("Upload session {} completed with file ID: {}", id, session.getFileId());
+            return ResponseEntity.ok(session);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid completion of upload session {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Upload session {} cannot be completed: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error completing upload session {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<?> abortSession(@PathVariable String id) {
+        try {
+            uploadSessionService.abort(id);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            logger.error("Upload session {} not found: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            logger.warn("Upload session {} cannot be aborted: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error aborting upload session {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.rosebeauticare.rosebeauticare.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a bulk customer import. Rows are numbered from 1 in the order they were sent, not
+// counting a CSV header or blank lines.
+public class CustomerImportReportDTO {
+    private long received;
+    private long inserted;
+    private List<RejectedRow> rejected = new ArrayList<>();
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public List<RejectedRow> getRejected() {
+        return rejected;
+    }
+
+    public static class RejectedRow {
+        private long row;
+        private String reason;
+
+        public RejectedRow(long row, String reason) {
+            this.row = row;
+            this.reason = reason;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.rosebeauticare.rosebeauticare.DTO;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+
+import java.util.List;
+
+public class CustomerPageDTO {
+    private List<Customer> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public CustomerPageDTO(List<Customer> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<Customer> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -42,18 +42,20 @@ public class StaffDetailsDTO {
     @NotBlank(message = "Document type is required")
     private String documentType;
 
-    private byte[] photo;
+    private String photoUrl;
     private String photoContentType;
-    private byte[] documentphoto;
+    private String documentPhotoUrl;
     private String documentPhotoContentType;
+    // True when a file lookup timed out or failed and the fallback content type was used
+    private boolean partial;
 
     public StaffDetailsDTO() {
     }
 
     public StaffDetailsDTO(String id, String name, String username, String phonenumber, String alternatephonenumber,
             String email, String dateofbirth, String age, String sex, String maritalstatus, String joineddate,
-            String address, String role, String documentType, byte[] photo, String photoContentType,
-            byte[] documentphoto, String documentPhotoContentType) {
+            String address, String role, String documentType, String photoUrl, String photoContentType,
+            String documentPhotoUrl, String documentPhotoContentType) {
         this.id = id;
         this.name = name;
         this.username = username;
@@ -68,9 +70,9 @@ public class StaffDetailsDTO {
         this.address = address;
         this.role = role;
         this.documentType = documentType;
-        this.photo = photo;
+        this.photoUrl = photoUrl;
         this.photoContentType = photoContentType;
-        this.documentphoto = documentphoto;
+        this.documentPhotoUrl = documentPhotoUrl;
         this.documentPhotoContentType = documentPhotoContentType;
     }
 
@@ -187,12 +189,12 @@ public class StaffDetailsDTO {
         this.documentType = documentType;
     }
 
-    public byte[] getPhoto() {
-        return photo;
+    public String getPhotoUrl() {
+        return photoUrl;
     }
 
-    public void setPhoto(byte[] photo) {
-        this.photo = photo;
+    public void setPhotoUrl(String photoUrl) {
+        this.photoUrl = photoUrl;
     }
 
     public String getPhotoContentType() {
@@ -203,12 +205,12 @@ public class StaffDetailsDTO {
         this.photoContentType = photoContentType;
     }
 
-    public byte[] getDocumentphoto() {
-        return documentphoto;
+    public String getDocumentPhotoUrl() {
+        return documentPhotoUrl;
     }
 
-    public void setDocumentphoto(byte[] documentphoto) {
-        this.documentphoto = documentphoto;
+    public void setDocumentPhotoUrl(String documentPhotoUrl) {
+        this.documentPhotoUrl = documentPhotoUrl;
     }
 
     public String getDocumentPhotoContentType() {
@@ -218,4 +220,12 @@ public class StaffDetailsDTO {
     public void setDocumentPhotoContentType(String documentPhotoContentType) {
         this.documentPhotoContentType = documentPhotoContentType;
     }
-}
\ No newline at end of file
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+}
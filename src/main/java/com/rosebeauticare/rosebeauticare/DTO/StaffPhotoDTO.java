@@ -3,13 +3,13 @@ package com.rosebeauticare.rosebeauticare.DTO;
 public class StaffPhotoDTO {
     private String id;
     private String username;
-    private byte[] photo;
+    private String photoUrl;
     private String photoContentType;
 
-    public StaffPhotoDTO(String id, String username, byte[] photo, String photoContentType) {
+    public StaffPhotoDTO(String id, String username, String photoUrl, String photoContentType) {
         this.id = id;
         this.username = username;
-        this.photo = photo;
+        this.photoUrl = photoUrl;
         this.photoContentType = photoContentType;
 
     }
@@ -30,12 +30,12 @@ public class StaffPhotoDTO {
         this.username = username;
     }
 
-    public byte[] getPhoto() {
-        return photo;
+    public String getPhotoUrl() {
+        return photoUrl;
     }
 
-    public void setPhoto(byte[] photo) {
-        this.photo = photo;
+    public void setPhotoUrl(String photoUrl) {
+        this.photoUrl = photoUrl;
     }
 
     public String getPhotoContentType() {
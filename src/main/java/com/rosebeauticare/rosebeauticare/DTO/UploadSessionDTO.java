@@ -0,0 +1,53 @@
+package com.rosebeauticare.rosebeauticare.DTO;
+
+import java.util.Date;
+import java.util.List;
+
+public class UploadSessionDTO {
+    private String id;
+    private String status;
+    private int chunkSize;
+    private int totalChunks;
+    private List<Integer> missingChunks;
+    private String fileId;
+    private Date expiresAt;
+
+    public UploadSessionDTO(String id, String status, int chunkSize, int totalChunks, List<Integer> missingChunks,
+            String fileId, Date expiresAt) {
+        this.id = id;
+        this.status = status;
+        this.chunkSize = chunkSize;
+        this.totalChunks = totalChunks;
+        this.missingChunks = missingChunks;
+        this.fileId = fileId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
+    public List<Integer> getMissingChunks() {
+        return missingChunks;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+}
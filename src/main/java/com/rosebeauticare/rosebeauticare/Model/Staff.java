@@ -16,6 +16,8 @@ public class Staff {
     private String id;
     private String name;
     private String username;
+    // Lower-cased username, kept in step by StaffService; unique and used for exact-match lookups
+    private String usernameNormalized;
     private String phonenumber;
     private String alternatephonenumber;
     private String email;
@@ -0,0 +1,41 @@
+package com.rosebeauticare.rosebeauticare.Model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Set;
+
+// A resumable upload: numbered chunks are staged in uploadChunks until the session is completed into a
+// GridFS file. Both collections expire through TTL indexes on expiresAt.
+@Document(collection = "uploadSessions")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class UploadSession {
+
+    public static final String OPEN = "OPEN";
+    public static final String COMPLETING = "COMPLETING";
+    public static final String COMPLETE = "COMPLETE";
+
+    @Id
+    private String id;
+    private String category;
+    private String filename;
+    private String contentType;
+    private long size;
+    private String sha256;
+    private int chunkSize;
+    private int totalChunks;
+    private Set<Integer> receivedChunks;
+    private String status;
+    // When the current completion started; a COMPLETING session older than the timeout can be taken over
+    private Date completingAt;
+    private String fileId;
+    private String createdBy;
+    private Date createdAt;
+    private Date expiresAt;
+}
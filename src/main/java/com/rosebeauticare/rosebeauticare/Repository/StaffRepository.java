@@ -10,8 +10,12 @@ public interface StaffRepository extends MongoRepository<Staff, String> {
     @Query("{ 'email' : ?0 }")
     Optional<Staff> findByEmail(String email);
 
+    @Query("{ 'usernameNormalized' : ?0 }")
+    Optional<Staff> findByUsernameNormalized(String usernameNormalized);
+
+    // Only for staff documents written before usernameNormalized existed
     @Query("{ 'username' : { $regex: ?0, $options: 'i' } }")
-    Optional<Staff> findByUsername(String username);
+    Optional<Staff> findByUsernameMatching(String pattern);
 
     @Query("{ 'phonenumber' : ?0 }")
     Optional<Staff> findByPhoneNumber(String phonenumber);
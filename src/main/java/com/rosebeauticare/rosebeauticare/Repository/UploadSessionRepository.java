@@ -0,0 +1,10 @@
+package com.rosebeauticare.rosebeauticare.Repository;
+
+import com.rosebeauticare.rosebeauticare.Model.UploadSession;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+    Optional<UploadSession> findFirstByFileIdAndCreatedByAndStatus(String fileId, String createdBy, String status);
+}
@@ -29,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -42,23 +45,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = header.substring(7);
             logger.debug("JWT token received: {}", jwt.substring(0, Math.min(jwt.length(), 20)) + "...");
 
-            if (!jwtUtil.validateToken(jwt)) {
-                logger.error("Invalid JWT token for URI: {}", request.getRequestURI());
-                filterChain.doFilter(request, response);
-                return;
+            VerifiedTokenCache.VerifiedToken verified = tokenCache.get(jwt);
+            if (verified == null) {
+                JwtPrincipal principal = jwtUtil.verifyToken(jwt);
+                if (principal == null) {
+                    logger.error("Invalid JWT token for URI: {}", request.getRequestURI());
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + principal.getRole());
+                logger.debug("Created authority: {}", authority.getAuthority());
+                verified = tokenCache.put(jwt, principal, Collections.singletonList(authority));
             }
 
             try {
-                String username = jwtUtil.getUsernameFromToken(jwt);
-                String role = jwtUtil.getRoleFromToken(jwt);
+                String username = verified.getUsername();
+                String role = verified.getRole();
                 logger.debug("Extracted username: {}, role: {}", username, role);
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
-                    logger.debug("Created authority: {}", authority.getAuthority());
-
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            username, null, Collections.singletonList(authority));
+                            username, null, verified.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     logger.info("Authentication set for user: {} with role: {}", username, role);
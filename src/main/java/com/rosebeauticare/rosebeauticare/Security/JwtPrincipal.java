@@ -0,0 +1,27 @@
+package com.rosebeauticare.rosebeauticare.Security;
+
+import java.util.Date;
+
+public class JwtPrincipal {
+    private final String username;
+    private final String role;
+    private final Date expiration;
+
+    public JwtPrincipal(String username, String role, Date expiration) {
+        this.username = username;
+        this.role = role;
+        this.expiration = expiration;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+}
@@ -0,0 +1,142 @@
+package com.rosebeauticare.rosebeauticare.Security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Tokens whose signature has already been checked, keyed by their SHA-256 so raw tokens are never
+// held. Each entry expires at the token's own exp claim; maxSize bounds the cache and Caffeine's
+// W-TinyLFU policy picks the victims once it is reached.
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private final long maxSize;
+    private final Cache<String, VerifiedToken> entries;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${jwt.cache.max-size:10000}") long maxSize) {
+        this(maxSize, Ticker.systemTicker());
+    }
+
+    VerifiedTokenCache(long maxSize, Ticker ticker) {
+        this.maxSize = maxSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    // Lives until the token's exp, measured from when it is cached; a token is never re-verified
+    // later, so reads and re-puts leave the deadline unchanged
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = Math.max(0, value.getExpiresAt() - System.currentTimeMillis());
+            return TimeUnit.MILLISECONDS.toNanos(remainingMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    public static class VerifiedToken {
+        private final String username;
+        private final String role;
+        private final List<GrantedAuthority> authorities;
+        private final long expiresAt;
+
+        public VerifiedToken(String username, String role, List<GrantedAuthority> authorities, long expiresAt) {
+            this.username = username;
+            this.role = role;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public List<GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    public VerifiedToken get(String token) {
+        return entries.getIfPresent(digest(token));
+    }
+
+    public VerifiedToken put(String token, JwtPrincipal principal, List<GrantedAuthority> authorities) {
+        if (principal.getExpiration() == null) {
+            // Without an exp claim there is nothing to bound the entry's lifetime
+            return new VerifiedToken(principal.getUsername(), principal.getRole(), authorities, Long.MAX_VALUE);
+        }
+        VerifiedToken verified = new VerifiedToken(principal.getUsername(), principal.getRole(),
+                List.copyOf(authorities), principal.getExpiration().getTime());
+        entries.put(digest(token), verified);
+        return verified;
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+        logger.info("Verified token cache cleared");
+    }
+
+    // Evictions include tokens dropped at their exp as well as those pushed out by maxSize
+    public Map<String, Object> getStats() {
+        entries.cleanUp();
+        CacheStats cacheStats = entries.stats();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.estimatedSize());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("evictions", cacheStats.evictionCount());
+        return stats;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
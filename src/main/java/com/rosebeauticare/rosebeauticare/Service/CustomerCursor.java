@@ -0,0 +1,68 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Position after the last customer of a page: the sort it belongs to, that customer's _id and, for the
+// name sort, its name. Encoded as URL-safe base64 so clients treat it as opaque.
+final class CustomerCursor {
+
+    enum Sort {
+        ID, NAME;
+
+        static Sort parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid sort: " + value + ". Use 'id' or 'name'.");
+            }
+        }
+    }
+
+    private final Sort sort;
+    private final ObjectId lastId;
+    private final String lastName;
+
+    CustomerCursor(Sort sort, ObjectId lastId, String lastName) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastName = lastName;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+
+    ObjectId getLastId() {
+        return lastId;
+    }
+
+    String getLastName() {
+        return lastName;
+    }
+
+    // "<sort>:<id>[:<name>]"; the name comes last so it may contain any character
+    String encode() {
+        String value = sort.name() + ":" + lastId.toHexString() + (sort == Sort.NAME ? ":" + lastName : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(":", 3);
+            Sort sort = Sort.valueOf(parts[0]);
+            if (!ObjectId.isValid(parts[1]) || (sort == Sort.NAME) != (parts.length == 3)) {
+                throw new IllegalArgumentException();
+            }
+            return new CustomerCursor(sort, new ObjectId(parts[1]), sort == Sort.NAME ? parts[2] : null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import com.rosebeauticare.rosebeauticare.DTO.CustomerImportReportDTO;
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+// Bulk customer import from CSV (with a header row) or NDJSON. Rows are read one at a time, checked with
+// the same rules as POST /api/customer, and checked against earlier rows of the same import for the
+// fields the unique indexes cover; valid rows are inserted in unordered bulk writes of batch-size, so one
+// bad row does not stop the rest. Duplicates of existing customers are caught by the unique indexes and
+// reported per row. An import that fails part way can be re-sent: rows already imported are then
+// rejected as duplicates.
+@Service
+public class CustomerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerImportService.class);
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final List<String> COLUMNS = List.of("name", "phonenumber", "alternatePhoneNumber",
+            "maritalstatus", "townOrVillage", "district", "state", "gender", "customerSince");
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "phonenumber", "maritalstatus", "gender",
+            "customerSince");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerSearchIndex searchIndex;
+
+    @Autowired
+    private MongoIndexManager indexManager;
+
+    @Value("${customers.import.batch-size:1000}")
+    private int batchSize;
+
+    public CustomerImportReportDTO importCustomers(InputStream in, ExportService.Format format, boolean gzip)
+            throws IOException {
+        // Duplicates of existing customers are only caught by the unique indexes, and a bulk write has no
+        // lookup fallback, so refuse to import until they are confirmed to exist
+        if (!indexManager.uniqueIndexesReady("customers")) {
+            throw new IllegalStateException("Customer unique indexes are not in place ("
+                    + indexManager.getMissingUniqueIndexes().getOrDefault("customers", List.of())
+                    + " missing); try again later");
+        }
+        long start = System.nanoTime();
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(gzip ? new GZIPInputStream(in) : in, StandardCharsets.UTF_8));
+        skipByteOrderMark(reader);
+        if (format == ExportService.Format.CSV) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        flush(run);
+        run.report.getRejected().sort(Comparator.comparingLong(CustomerImportReportDTO.RejectedRow::getRow));
+        logger.info("Imported {} of {} customers ({} rejected) in {} ms", run.report.getInserted(),
+                run.report.getReceived(), run.report.getRejected().size(), (System.nanoTime() - start) / 1_000_000);
+        return run.report;
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return;
+        }
+        // Accepts the form field names and the export's column names (address.district); other columns,
+        // such as id and createdAt in an export, are ignored
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (name.startsWith("address.")) {
+                name = name.substring("address.".length());
+            }
+            for (String column : COLUMNS) {
+                if (column.equalsIgnoreCase(name)) {
+                    columns.putIfAbsent(column, i);
+                }
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header must include " + column);
+            }
+        }
+
+        List<String> record;
+        while ((record = readCsvRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            List<String> values = record;
+            accept(run, () -> toCustomer(column -> {
+                Integer index = columns.get(column);
+                return index != null && index < values.size() ? ExportService.unescapeCsvValue(values.get(index)) : null;
+            }));
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String json = line;
+            accept(run, () -> {
+                Document document;
+                try {
+                    document = Document.parse(json);
+                } catch (JsonParseException e) {
+                    throw new IllegalArgumentException("Malformed JSON");
+                }
+                Object address = document.get("address");
+                return toCustomer(column -> {
+                    Object value = document.get(column);
+                    if (value == null && address instanceof Document) {
+                        value = ((Document) address).get(column);
+                    }
+                    return value != null ? String.valueOf(value) : null;
+                });
+            });
+        }
+    }
+
+    private void accept(Run run, Supplier<Customer> parser) {
+        long row = ++run.rows;
+        run.report.setReceived(row);
+        try {
+            Customer customer = parser.get();
+            CustomerValidation.validateNewCustomer(customer);
+            run.claim(customer, row);
+            customer.setId(new ObjectId().toHexString());
+            customer.setCreatedAt(LocalDateTime.now());
+            run.batch.add(customer);
+            run.batchRows.add(row);
+        } catch (IllegalArgumentException e) {
+            run.reject(row, e.getMessage());
+            return;
+        }
+        if (run.batch.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    private void flush(Run run) {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class).insert(run.batch).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                DuplicateFieldException duplicate = error.getCode() == DUPLICATE_KEY_ERROR
+                        ? CustomerService.duplicateField(MongoIndexManager.violatedIndex(error.getMessage()))
+                        : null;
+                run.reject(run.batchRows.get(error.getIndex()),
+                        duplicate != null ? duplicate.getMessage() : error.getMessage());
+            }
+        }
+        for (int i = 0; i < run.batch.size(); i++) {
+            if (!failed.contains(i)) {
+                searchIndex.put(run.batch.get(i));
+                run.report.setInserted(run.report.getInserted() + 1);
+            }
+        }
+        logger.debug("Wrote import batch of {} customers ({} rejected)", run.batch.size(), failed.size());
+        run.batch.clear();
+        run.batchRows.clear();
+    }
+
+    private static Customer toCustomer(Function<String, String> field) {
+        Function<String, String> value = column -> {
+            String text = field.apply(column);
+            return text != null && !text.isBlank() ? text.trim() : null;
+        };
+        Customer customer = new Customer();
+        customer.setName(value.apply("name"));
+        customer.setPhonenumber(value.apply("phonenumber"));
+        customer.setAlternatePhoneNumber(value.apply("alternatePhoneNumber"));
+        customer.setMaritalstatus(value.apply("maritalstatus"));
+        String townOrVillage = value.apply("townOrVillage");
+        String district = value.apply("district");
+        String state = value.apply("state");
+        if (townOrVillage != null || district != null || state != null) {
+            customer.setAddress(new Customer.Address(townOrVillage, district, state));
+        }
+        customer.setGender(value.apply("gender"));
+        customer.setCustomerSince(value.apply("customerSince"));
+        return customer;
+    }
+
+    // One CSV record, or null at the end of the input. Quoted fields may contain commas, doubled
+    // quotes and line breaks (RFC 4180); lines may end in CRLF or LF.
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    reader.reset();
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Spreadsheet programs often start a UTF-8 CSV with a byte order mark
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    // State of one import: the pending batch and the unique values seen so far. The unique indexes are
+    // per field, so the values are tracked the same way.
+    static final class Run {
+        private final CustomerImportReportDTO report = new CustomerImportReportDTO();
+        private final List<Customer> batch = new ArrayList<>();
+        private final List<Long> batchRows = new ArrayList<>();
+        private final Map<String, Long> names = new HashMap<>();
+        private final Map<String, Long> phoneNumbers = new HashMap<>();
+        private final Map<String, Long> alternatePhoneNumbers = new HashMap<>();
+        private long rows;
+
+        void claim(Customer customer, long row) {
+            check(names, customer.getName(), "Name");
+            check(phoneNumbers, customer.getPhonenumber(), "Phone number");
+            check(alternatePhoneNumbers, customer.getAlternatePhoneNumber(), "Alternate phone number");
+            names.put(customer.getName(), row);
+            phoneNumbers.put(customer.getPhonenumber(), row);
+            if (customer.getAlternatePhoneNumber() != null) {
+                alternatePhoneNumbers.put(customer.getAlternatePhoneNumber(), row);
+            }
+        }
+
+        private static void check(Map<String, Long> seen, String value, String label) {
+            Long row = value != null ? seen.get(value) : null;
+            if (row != null) {
+                throw new IllegalArgumentException(label + " already exists in row " + row);
+            }
+        }
+
+        void reject(long row, String reason) {
+            report.getRejected().add(new CustomerImportReportDTO.RejectedRow(row, reason));
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// In-memory prefix index over customer names and phone numbers for search-as-you-type. Tokens are kept
+// in a sorted map, so all tokens starting with a prefix are one range lookup; matching customers are
+// ranked here and only their ids go to Mongo. Name tokens are the normalised words of the name; phone
+// tokens are every suffix of the national number, so typing any part of a number finds it. The index
+// is built in the background after startup and rebuilt on rebuild-cron to pick up writes made by other
+// instances; until the first build finishes, isReady() is false and callers fall back to Mongo. Writes
+// through this instance are indexed immediately, but a customer added or renamed through another
+// instance cannot be found here until the next rebuild (by default up to 15 minutes).
+@Component
+public class CustomerSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+    private static final String NAME_PREFIX = "n:";
+    private static final String PHONE_PREFIX = "p:";
+    private static final int NATIONAL_NUMBER_LENGTH = 10;
+
+    public enum Field {
+        ALL, NAME, PHONE
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${customers.search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${customers.search.min-name-length:2}")
+    private int minNameLength = 2;
+
+    @Value("${customers.search.min-phone-digits:3}")
+    private int minPhoneDigits = 3;
+
+    private volatile Tokens current = new Tokens();
+    // Index being rebuilt; writes made while a rebuild runs are applied to both
+    private volatile Tokens building;
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            logger.info("Customer search index is disabled; searches use Mongo");
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "customer-search-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(cron = "${customers.search.index.rebuild-cron:0 */15 * * * *}")
+    public void scheduledRebuild() {
+        if (enabled && ready) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        Tokens tokens = new Tokens();
+        building = tokens;
+        try {
+            Query query = new Query();
+            query.fields().include("name", "phonenumber", "alternatePhoneNumber");
+            int count = 0;
+            try (Stream<Customer> stream = mongoTemplate.stream(query, Customer.class)) {
+                Iterator<Customer> customers = stream.iterator();
+                while (customers.hasNext()) {
+                    Customer customer = customers.next();
+                    // A customer written since the rebuild started is already in the new index, and
+                    // possibly newer than the version the cursor returns
+                    if (!tokens.touched.contains(customer.getId())) {
+                        tokens.put(customer);
+                    }
+                    count++;
+                }
+            }
+            current = tokens;
+            ready = true;
+            logger.info("Built customer search index: {} customers, {} tokens in {} ms", count, tokens.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build customer search index: {}", e.getMessage());
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(Customer customer) {
+        if (customer == null || customer.getId() == null) {
+            return;
+        }
+        // Read before touching current: once a rebuild swaps in its index, building is cleared
+        Tokens next = building;
+        current.put(customer);
+        if (next != null) {
+            next.touched.add(customer.getId());
+            next.put(customer);
+        }
+    }
+
+    public void remove(String customerId) {
+        Tokens next = building;
+        current.remove(customerId);
+        if (next != null) {
+            next.touched.add(customerId);
+            next.remove(customerId);
+        }
+    }
+
+    // Ids of the best matches, best first. Every word of the query must prefix a word of the name; a
+    // query without letters is also matched against phone numbers. Name words shorter than
+    // min-name-length only narrow the matches of the longer words, and a phone query needs
+    // min-phone-digits, so a one- or two-character prefix never has to rank most of the index.
+    public List<String> search(String query, Field field, int limit) {
+        if (query == null || query.isBlank() || limit < 1) {
+            return Collections.emptyList();
+        }
+        Tokens tokens = current;
+        List<String> words = words(query);
+        String digits = query.replaceAll("[^0-9]", "");
+        boolean numeric = !digits.isEmpty() && query.chars().noneMatch(Character::isLetter);
+
+        Set<String> candidates = new HashSet<>();
+        if (field != Field.PHONE && !words.isEmpty()) {
+            candidates.addAll(matchAll(tokens, words, minNameLength));
+        }
+        if (field != Field.NAME && numeric && digits.length() >= minPhoneDigits) {
+            candidates.addAll(tokens.withPrefix(PHONE_PREFIX + phoneQuery(digits)));
+        }
+
+        // Keeps the best limit matches in a heap whose head is the worst of them, rather than sorting
+        // every candidate
+        Comparator<Match> ranking = Comparator.<Match>comparingInt(match -> match.score)
+                .reversed()
+                .thenComparing(match -> match.entry.name)
+                .thenComparing(match -> match.entry.id);
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, candidates.size()) + 1, ranking.reversed());
+        for (String id : candidates) {
+            Entry entry = tokens.entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            best.add(new Match(entry, score(entry, words, digits, field)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        return ranked.stream().map(match -> match.entry.id).collect(Collectors.toList());
+    }
+
+    private static Set<String> matchAll(Tokens tokens, List<String> words, int minLength) {
+        Set<String> result = null;
+        for (String word : words) {
+            if (word.length() < minLength) {
+                continue;
+            }
+            Set<String> matches = tokens.withPrefix(NAME_PREFIX + word);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        if (result == null) {
+            return Collections.emptySet();
+        }
+        for (String word : words) {
+            if (word.length() < minLength) {
+                result.removeIf(id -> {
+                    Entry entry = tokens.entries.get(id);
+                    return entry == null || entry.words.stream().noneMatch(candidate -> candidate.startsWith(word));
+                });
+            }
+        }
+        return result;
+    }
+
+    // Exact words rank above prefixes, and a match on the first word of the name above a later word;
+    // for phones a whole number ranks above its start, which ranks above a match in the middle
+    private static int score(Entry entry, List<String> words, String digits, Field field) {
+        int score = 0;
+        if (field != Field.PHONE) {
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+                for (int j = 0; j < entry.words.size(); j++) {
+                    String candidate = entry.words.get(j);
+                    if (candidate.startsWith(word)) {
+                        score += (candidate.equals(word) ? 4 : 2) + (i == 0 && j == 0 ? 1 : 0);
+                        break;
+                    }
+                }
+            }
+        }
+        if (field != Field.NAME && !digits.isEmpty()) {
+            String number = phoneQuery(digits);
+            int best = 0;
+            for (String phone : entry.phones) {
+                if (phone.equals(number)) {
+                    best = Math.max(best, 6);
+                } else if (phone.startsWith(number)) {
+                    best = Math.max(best, 4);
+                } else if (phone.contains(number)) {
+                    best = Math.max(best, 2);
+                }
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    static List<String> words(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Stored numbers carry the +91 prefix; a query of more than ten digits is taken to include it
+    private static String phoneQuery(String digits) {
+        return digits.length() > NATIONAL_NUMBER_LENGTH ? nationalNumber(digits) : digits;
+    }
+
+    private static String nationalNumber(String digits) {
+        return digits.length() > NATIONAL_NUMBER_LENGTH ? digits.substring(digits.length() - NATIONAL_NUMBER_LENGTH)
+                : digits;
+    }
+
+    private static final class Match {
+        private final Entry entry;
+        private final int score;
+
+        private Match(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final String name;
+        private final List<String> words;
+        private final List<String> phones;
+        private final Set<String> tokens = new HashSet<>();
+
+        private Entry(Customer customer) {
+            this.id = customer.getId();
+            this.words = words(customer.getName());
+            this.name = String.join(" ", words);
+            this.phones = new ArrayList<>();
+            for (String phone : new String[] { customer.getPhonenumber(), customer.getAlternatePhoneNumber() }) {
+                String digits = phone != null ? phone.replaceAll("[^0-9]", "") : "";
+                if (!digits.isEmpty()) {
+                    phones.add(nationalNumber(digits));
+                }
+            }
+            for (String word : words) {
+                tokens.add(NAME_PREFIX + word);
+            }
+            for (String phone : phones) {
+                for (int i = 0; i < phone.length(); i++) {
+                    tokens.add(PHONE_PREFIX + phone.substring(i));
+                }
+            }
+        }
+    }
+
+    // Reads are lock-free; writes are serialised, which keeps a token's id set from being dropped from
+    // the map by one writer while another adds to it
+    private static final class Tokens {
+        private final ConcurrentSkipListMap<String, Set<String>> index = new ConcurrentSkipListMap<>();
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+        synchronized void put(Customer customer) {
+            remove(customer.getId());
+            Entry entry = new Entry(customer);
+            entries.put(entry.id, entry);
+            for (String token : entry.tokens) {
+                index.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(entry.id);
+            }
+        }
+
+        synchronized void remove(String id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (String token : entry.tokens) {
+                Set<String> ids = index.get(token);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        index.remove(token);
+                    }
+                }
+            }
+        }
+
+        Set<String> withPrefix(String prefix) {
+            NavigableMap<String, Set<String>> range = index.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+            Set<String> ids = new HashSet<>();
+            range.values().forEach(ids::addAll);
+            return ids;
+        }
+
+        int size() {
+            return index.size();
+        }
+    }
+}
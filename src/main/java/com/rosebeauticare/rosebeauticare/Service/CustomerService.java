@@ -1,15 +1,29 @@
 package com.rosebeauticare.rosebeauticare.Service;
 
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import com.rosebeauticare.rosebeauticare.DTO.CustomerPageDTO;
 import com.rosebeauticare.rosebeauticare.Model.Customer;
 import com.rosebeauticare.rosebeauticare.Repository.CustomerRepository;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 public class CustomerService {
@@ -19,10 +33,37 @@ public class CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerSearchIndex searchIndex;
+
+    @Autowired
+    private MongoIndexManager indexManager;
+
+    @Value("${customers.search.max-results:20}")
+    private int maxSearchResults;
+
+    @Value("${customers.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${customers.page.max-size:200}")
+    private int maxPageSize;
+
+
     public Customer addCustomer(Customer customer) {
         logger.info("Adding customer with phonenumber: {}", customer.getPhonenumber());
         customer.setCreatedAt(LocalDateTime.now());
-        return customerRepository.save(customer);
+        checkUniqueFields(customer);
+        Customer saved;
+        try {
+            saved = customerRepository.insert(customer);
+        } catch (DuplicateKeyException e) {
+            throw duplicateField(e);
+        }
+        searchIndex.put(saved);
+        return saved;
     }
 
     public Customer updateCustomer(String id, Customer updatedCustomer) {
@@ -56,7 +97,58 @@ public class CustomerService {
             customer.setCustomerSince(updatedCustomer.getCustomerSince());
         }
 
-        return customerRepository.save(customer);
+        checkUniqueFields(customer);
+        Customer saved;
+        try {
+            saved = customerRepository.save(customer);
+        } catch (DuplicateKeyException e) {
+            throw duplicateField(e);
+        }
+        searchIndex.put(saved);
+        return saved;
+    }
+
+    // Uniqueness of name and phone numbers is enforced by unique indexes; a write that breaks it is
+    // reported with the same message the pre-insert lookups used to give
+    private static RuntimeException duplicateField(DuplicateKeyException e) {
+        DuplicateFieldException duplicate = duplicateField(MongoIndexManager.violatedIndex(e));
+        return duplicate != null ? duplicate : e;
+    }
+
+    // null when the index is not one of the customer unique indexes
+    static DuplicateFieldException duplicateField(String index) {
+        if (MongoIndexManager.CUSTOMER_NAME_INDEX.equals(index)) {
+            return new DuplicateFieldException("name", "Name already exists");
+        }
+        if (MongoIndexManager.CUSTOMER_PHONE_INDEX.equals(index)) {
+            return new DuplicateFieldException("phonenumber", "Phone number already exists");
+        }
+        if (MongoIndexManager.CUSTOMER_ALTERNATE_PHONE_INDEX.equals(index)) {
+            return new DuplicateFieldException("alternatePhoneNumber", "Alternate phone number already exists");
+        }
+        return null;
+    }
+
+    // Used only while the unique indexes are not known to exist (still being created at startup, or
+    // blocked by duplicates already in the data); otherwise the write itself rejects duplicates
+    private void checkUniqueFields(Customer customer) {
+        if (indexManager.uniqueIndexesReady("customers")) {
+            return;
+        }
+        if (isTakenByOther(customerRepository.findByName(customer.getName()), customer)) {
+            throw duplicateField(MongoIndexManager.CUSTOMER_NAME_INDEX);
+        }
+        if (isTakenByOther(customerRepository.findByPhonenumber(customer.getPhonenumber()), customer)) {
+            throw duplicateField(MongoIndexManager.CUSTOMER_PHONE_INDEX);
+        }
+        if (customer.getAlternatePhoneNumber() != null && isTakenByOther(
+                customerRepository.findByAlternatePhoneNumber(customer.getAlternatePhoneNumber()), customer)) {
+            throw duplicateField(MongoIndexManager.CUSTOMER_ALTERNATE_PHONE_INDEX);
+        }
+    }
+
+    private static boolean isTakenByOther(Optional<Customer> other, Customer customer) {
+        return other.isPresent() && !Objects.equals(other.get().getId(), customer.getId());
     }
 
     public void deleteCustomer(String id) {
@@ -66,11 +158,15 @@ public class CustomerService {
             throw new IllegalArgumentException("Customer not found");
         }
         customerRepository.deleteById(id);
+        searchIndex.remove(id);
     }
 
     public List<Customer> searchCustomers(String query) {
         logger.info("Searching customers with query: {}", query);
-        return customerRepository.searchByQuery(query);
+        if (searchIndex.isReady()) {
+            return findRanked(searchIndex.search(query, CustomerSearchIndex.Field.ALL, maxSearchResults));
+        }
+        return searchWithRegex(query, CustomerSearchIndex.Field.ALL);
     }
 
     public List<Customer> searchCustomersRealTime(String query, String type) {
@@ -79,14 +175,114 @@ public class CustomerService {
             logger.warn("Invalid search type: {}", type);
             throw new IllegalArgumentException("Invalid search type. Use 'name' or 'phonenumber'.");
         }
-        return customerRepository.findByField(type, query);
+        if (searchIndex.isReady()) {
+            CustomerSearchIndex.Field field = type.equals("name") ? CustomerSearchIndex.Field.NAME
+                    : CustomerSearchIndex.Field.PHONE;
+            return findRanked(searchIndex.search(query, field, maxSearchResults));
+        }
+        return searchWithRegex(query, type.equals("name") ? CustomerSearchIndex.Field.NAME
+                : CustomerSearchIndex.Field.PHONE);
+    }
+
+    // Used while the search index is being built, or when it is disabled. The query is matched
+    // literally (quoted, never interpreted as a pattern) and results are capped like the index's. Names
+    // match anywhere, case-insensitively; phone numbers match from the start of the national number, a
+    // prefix the phone number indexes can serve.
+    private List<Customer> searchWithRegex(String query, CustomerSearchIndex.Field field) {
+        String text = query != null ? query.trim() : "";
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        List<Criteria> matches = new ArrayList<>();
+        if (field != CustomerSearchIndex.Field.PHONE) {
+            matches.add(Criteria.where("name").regex(Pattern.quote(text), "i"));
+        }
+        String digits = text.replaceAll("[^0-9]", "");
+        if (field != CustomerSearchIndex.Field.NAME && !digits.isEmpty()) {
+            String national = digits.length() > 10 ? digits.substring(digits.length() - 10) : digits;
+            String prefix = "^\\+91" + Pattern.quote(national);
+            matches.add(Criteria.where("phonenumber").regex(prefix));
+            matches.add(Criteria.where("alternatePhoneNumber").regex(prefix));
+        }
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Query search = new Query(new Criteria().orOperator(matches))
+                .with(Sort.by("name"))
+                .limit(maxSearchResults);
+        return mongoTemplate.find(search, Customer.class);
+    }
+
+    // Fetches only the matched customers and keeps the index's ranking
+    private List<Customer> findRanked(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Customer> byId = new HashMap<>();
+        customerRepository.findAllById(ids).forEach(customer -> byId.put(customer.getId(), customer));
+        List<Customer> ranked = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Customer customer = byId.get(id);
+            if (customer != null) {
+                ranked.add(customer);
+            }
+        }
+        return ranked;
     }
 
+    // Loads the whole collection; kept for existing clients, new ones should page with getCustomerPage
     public List<Customer> getAllCustomers() {
         logger.info("Fetching all customers");
         return customerRepository.findAll();
     }
-    
+
+    // Keyset pagination: each page continues after the last customer of the previous one instead of
+    // skipping over it, so every page costs the same however deep the client goes. Sorting is by _id
+    // (creation order) or by name with _id as tie-breaker, both served by an index.
+    public CustomerPageDTO getCustomerPage(String sort, String cursor, Integer limit) {
+        CustomerCursor.Sort order = CustomerCursor.Sort.parse(sort);
+        CustomerCursor after = cursor != null && !cursor.isEmpty() ? CustomerCursor.decode(cursor) : null;
+        if (after != null && after.getSort() != order) {
+            throw new IllegalArgumentException("Cursor does not belong to sort '" + order.name().toLowerCase() + "'");
+        }
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        pageSize = Math.min(pageSize, maxPageSize);
+
+        Query query = new Query();
+        if (order == CustomerCursor.Sort.NAME) {
+            indexManager.ensure("customers");
+            if (after != null) {
+                query.addCriteria(new Criteria().orOperator(
+                        Criteria.where("name").gt(after.getLastName()),
+                        Criteria.where("name").is(after.getLastName()).and("_id").gt(after.getLastId())));
+            }
+            query.with(Sort.by(Sort.Order.asc("name"), Sort.Order.asc("_id")));
+        } else {
+            if (after != null) {
+                query.addCriteria(Criteria.where("_id").gt(after.getLastId()));
+            }
+            query.with(Sort.by(Sort.Order.asc("_id")));
+        }
+        // One extra document tells whether another page follows without a count
+        query.limit(pageSize + 1);
+
+        List<Customer> customers = mongoTemplate.find(query, Customer.class);
+        boolean hasMore = customers.size() > pageSize;
+        if (hasMore) {
+            customers = customers.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Customer last = customers.get(customers.size() - 1);
+            nextCursor = new CustomerCursor(order, new ObjectId(last.getId()), last.getName()).encode();
+        }
+        logger.debug("Fetched page of {} customers (sort: {}, hasMore: {})", customers.size(), order, hasMore);
+        return new CustomerPageDTO(customers, nextCursor, hasMore);
+    }
+
     public Optional<Customer> getCustomerByPhonenumber(String phonenumber) {
         return customerRepository.findByPhonenumber(phonenumber);
     }
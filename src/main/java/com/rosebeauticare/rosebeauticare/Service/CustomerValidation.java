@@ -0,0 +1,58 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+// Field rules for customers, shared by the customer endpoints and the bulk import. Uniqueness is not
+// checked here; the unique indexes enforce it on write.
+public final class CustomerValidation {
+
+    public static final String PHONE_NUMBER_MESSAGE = "Phone number must start with +91 and be 10 digits";
+    public static final String ALTERNATE_PHONE_NUMBER_MESSAGE = "Alternate phone number must start with +91 and be 10 digits";
+
+    private CustomerValidation() {
+    }
+
+    public static boolean isValidPhoneNumber(String phonenumber) {
+        return phonenumber != null && phonenumber.startsWith("+91") && phonenumber.length() == 13;
+    }
+
+    public static void validateCustomerSince(String customerSince) {
+        if (customerSince == null || customerSince.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDate.parse(customerSince);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format for customerSince: " + customerSince);
+        }
+    }
+
+    // The checks POST /api/customer makes, for a customer built without going through it. An empty
+    // alternate number is treated as none.
+    public static void validateNewCustomer(Customer customer) {
+        requireText(customer.getName(), "Name is required");
+        requireText(customer.getPhonenumber(), "Phone number is required");
+        requireText(customer.getMaritalstatus(), "Marital status is required");
+        requireText(customer.getGender(), "Gender is required");
+        requireText(customer.getCustomerSince(), "Customer since date is required");
+        if (!isValidPhoneNumber(customer.getPhonenumber())) {
+            throw new IllegalArgumentException(PHONE_NUMBER_MESSAGE);
+        }
+        if (customer.getAlternatePhoneNumber() != null && customer.getAlternatePhoneNumber().isEmpty()) {
+            customer.setAlternatePhoneNumber(null);
+        }
+        if (customer.getAlternatePhoneNumber() != null && !isValidPhoneNumber(customer.getAlternatePhoneNumber())) {
+            throw new IllegalArgumentException(ALTERNATE_PHONE_NUMBER_MESSAGE);
+        }
+        validateCustomerSince(customer.getCustomerSince());
+    }
+
+    private static void requireText(String value, String message) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
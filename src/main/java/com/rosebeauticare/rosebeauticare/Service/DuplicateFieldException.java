@@ -0,0 +1,17 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+// A write rejected by a unique index; the message is the one shown to the client, e.g. "Email already exists"
+public class DuplicateFieldException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final String field;
+
+    public DuplicateFieldException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
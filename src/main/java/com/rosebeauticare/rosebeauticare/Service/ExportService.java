@@ -0,0 +1,324 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Streams whole collections to a response as NDJSON or CSV. Documents come from a Mongo cursor and are
+// written as they arrive, without being mapped to entities or collected, so memory use does not grow
+// with the size of the export. Documents are read raw and converted here; dates are written the way
+// the JSON API writes the LocalDate/LocalDateTime fields they were saved from.
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String FIELD_PATTERN = "[A-Za-z][A-Za-z0-9_]*(\\.[A-Za-z0-9_]+)*";
+    private static final String FORMULA_START = "=+-@\t\r";
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("[+-]?[0-9]+(\\.[0-9]+)?");
+    // Spring Data's type hint; internal, and not part of the API's JSON
+    private static final String TYPE_KEY = "_class";
+
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .objectIdConverter((value, writer) -> writer.writeString(value.toHexString()))
+            .dateTimeConverter((value, writer) -> writer.writeString(formatDate(new Date(value))))
+            .build();
+
+    public enum Format {
+        NDJSON("ndjson", "application/x-ndjson"),
+        CSV("csv", "text/csv");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format parse(String format) {
+            if (format == null || format.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Format must be ndjson or csv");
+            }
+        }
+    }
+
+    // Fields each dataset may be exported with, the first list being the default CSV columns; nested
+    // fields are selected with a dotted path (address.district). Only orders, which grow without bound,
+    // can be limited to a date range, served by the orderDate_id index.
+    public enum Dataset {
+        CUSTOMERS("customers", null,
+                List.of("id", "name", "phonenumber", "alternatePhoneNumber", "address.townOrVillage",
+                        "address.district", "address.state", "gender", "maritalstatus", "customerSince",
+                        "createdAt"),
+                List.of("address")),
+        ORDERS("orders", "orderDate",
+                List.of("id", "customerId", "customerName", "orderDate", "dueDate", "staffId", "staffName",
+                        "MeasurementId", "clothItems"),
+                List.of("images")),
+        MEASUREMENTS("measurements", null,
+                List.of("id", "customerId", "serviceType", "measurementDetails", "createdAt", "updatedAt"),
+                List.of());
+
+        private final String collection;
+        private final String dateField;
+        private final List<String> defaultColumns;
+        private final List<String> otherFields;
+
+        Dataset(String collection, String dateField, List<String> defaultColumns, List<String> otherFields) {
+            this.collection = collection;
+            this.dateField = dateField;
+            this.defaultColumns = defaultColumns;
+            this.otherFields = otherFields;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public static Dataset parse(String dataset) {
+            try {
+                return valueOf(dataset.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown export: " + dataset);
+            }
+        }
+
+        private boolean allows(String field) {
+            String root = field.contains(".") ? field.substring(0, field.indexOf('.')) : field;
+            return defaultColumns.stream().anyMatch(column -> column.equals(root) || column.startsWith(root + "."))
+                    || otherFields.contains(root);
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${exports.cursor-batch-size:500}")
+    private int cursorBatchSize;
+
+    // Validates the field list up front, so a bad one is a 400 rather than a broken download
+    public List<String> resolveFields(Dataset dataset, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        List<String> resolved = new ArrayList<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.matches(FIELD_PATTERN) || !dataset.allows(trimmed)) {
+                throw new IllegalArgumentException("Unknown field for " + dataset.getCollection() + ": " + trimmed);
+            }
+            if (!resolved.contains(trimmed)) {
+                resolved.add(trimmed);
+            }
+        }
+        return resolved.isEmpty() ? null : resolved;
+    }
+
+    public void checkRange(Dataset dataset, LocalDate from, LocalDate to) {
+        if ((from != null || to != null) && dataset.dateField == null) {
+            throw new IllegalArgumentException(dataset.getCollection() + " cannot be filtered by date");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+    }
+
+    // fields is null for every field (NDJSON) or the default columns (CSV). from/to are inclusive days.
+    public void export(Dataset dataset, Format format, List<String> fields, LocalDate from, LocalDate to,
+            boolean gzip, OutputStream out) throws IOException {
+        checkRange(dataset, from, to);
+        Query query = new Query();
+        if (from != null || to != null) {
+            Criteria range = Criteria.where(dataset.dateField);
+            if (from != null) {
+                range = range.gte(startOfDay(from));
+            }
+            if (to != null) {
+                range = range.lt(startOfDay(to.plusDays(1)));
+            }
+            query.addCriteria(range);
+            query.with(Sort.by(dataset.dateField, "_id"));
+        } else {
+            query.with(Sort.by("_id"));
+        }
+        List<String> columns = fields != null ? fields : format == Format.CSV ? dataset.defaultColumns : null;
+        if (columns != null) {
+            for (String column : columns) {
+                query.fields().include(column.equals("id") ? "_id" : column);
+            }
+        }
+        query.cursorBatchSize(cursorBatchSize);
+
+        long start = System.nanoTime();
+        OutputStream target = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : out;
+        long count;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, dataset.getCollection())) {
+            count = write(documents.iterator(), format, columns, target);
+        }
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+        logger.info("Exported {} {} as {}{} in {} ms", count, dataset.getCollection(), format.getExtension(),
+                gzip ? ".gz" : "", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Does not close out, which belongs to the caller
+    static long write(Iterator<Document> documents, Format format, List<String> columns, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writeCsvRow(writer, columns);
+        }
+        long count = 0;
+        while (documents.hasNext()) {
+            Document document = documents.next();
+            if (format == Format.CSV) {
+                List<String> row = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    row.add(csvValue(value(document, column.equals("id") ? "_id" : column)));
+                }
+                writeCsvRow(writer, row);
+            } else {
+                writer.write(toJson(document));
+                writer.write('\n');
+            }
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // _id is written as id, as in the API, and the _class type hint is left out
+    static String toJson(Document document) {
+        Document renamed = new Document();
+        if (document.containsKey("_id")) {
+            renamed.put("id", document.get("_id"));
+        }
+        for (Map.Entry<String, Object> entry : document.entrySet()) {
+            if (!entry.getKey().equals("_id") && !entry.getKey().equals(TYPE_KEY)) {
+                renamed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return renamed.toJson(JSON_SETTINGS);
+    }
+
+    private static Object value(Document document, String path) {
+        Object value = document;
+        for (String key : path.split("\\.")) {
+            if (!(value instanceof Document)) {
+                return null;
+            }
+            value = ((Document) value).get(key);
+        }
+        return value;
+    }
+
+    // Nested documents and arrays are written as JSON in a single cell
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof ObjectId) {
+            text = ((ObjectId) value).toHexString();
+        } else if (value instanceof Date) {
+            text = formatDate((Date) value);
+        } else if (value instanceof Document) {
+            text = ((Document) value).toJson(JSON_SETTINGS);
+        } else if (value instanceof List<?>) {
+            text = new Document("v", value).toJson(JSON_SETTINGS);
+            text = text.substring(text.indexOf(':') + 1, text.length() - 1).trim();
+        } else {
+            text = value.toString();
+        }
+        // Keep spreadsheets from evaluating a cell as a formula. A phone number or a plain number may start
+        // with + or - and is left as it is.
+        if (!text.isEmpty() && FORMULA_START.indexOf(text.charAt(0)) >= 0 && !PLAIN_NUMBER.matcher(text).matches()) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            text = '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    // Undoes the formula guard of csvValue, so an exported CSV imports with its original values
+    static String unescapeCsvValue(String text) {
+        if (text.length() > 1 && text.charAt(0) == '\'' && FORMULA_START.indexOf(text.charAt(1)) >= 0) {
+            return text.substring(1);
+        }
+        return text;
+    }
+
+    private static void writeCsvRow(Writer writer, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(cells.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    // Spring stores LocalDate and LocalDateTime at the server's zone, so read them back the same way;
+    // a midnight value was a LocalDate
+    private static String formatDate(Date date) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        return dateTime.toLocalTime().equals(LocalTime.MIDNIGHT) ? dateTime.toLocalDate().toString()
+                : dateTime.toString();
+    }
+
+    private static Date startOfDay(LocalDate day) {
+        Instant instant = day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        return Date.from(instant);
+    }
+}
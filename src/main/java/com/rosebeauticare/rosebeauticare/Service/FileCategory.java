@@ -0,0 +1,27 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+// Each category is stored in its own GridFS bucket, with a chunk size picked so a typical file is one
+// or two chunks. Files written before buckets were split stay in the legacy "fs" bucket.
+public enum FileCategory {
+    STAFF_PHOTO("staffPhotos", 512 * 1024),
+    STAFF_DOCUMENT("staffDocuments", 1024 * 1024),
+    ORDER_IMAGE("orderImages", 1024 * 1024);
+
+    public static final String LEGACY_BUCKET = "fs";
+
+    private final String bucket;
+    private final int chunkSize;
+
+    FileCategory(String bucket, int chunkSize) {
+        this.bucket = bucket;
+        this.chunkSize = chunkSize;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+}
@@ -0,0 +1,108 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bytes of small, frequently read GridFS files held in direct ByteBuffers, so repeated reads of the
+// same staff photo skip the chunk queries and the copies stay out of the young generation. Weighed by
+// byte size against a total budget; Caffeine's W-TinyLFU policy picks the victims. The budget must fit
+// under -XX:MaxDirectMemorySize; evicted buffers are released when the GC collects them.
+@Component
+public class FileContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileContentCache.class);
+    private static final int COPY_BUFFER_SIZE = 16 * 1024;
+
+    private final Cache<String, ByteBuffer> contents;
+    private final long maxEntryBytes;
+    private final boolean enabled;
+
+    public FileContentCache(
+            @Value("${files.content-cache.enabled:true}") boolean enabled,
+            @Value("${files.content-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${files.content-cache.max-entry-bytes:1048576}") long maxEntryBytes) {
+        this.enabled = enabled && maxBytes > 0;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        this.contents = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, maxBytes))
+                .weigher((String fileId, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+    }
+
+    public boolean accepts(GridFsFileDescriptor file) {
+        return enabled && file.getLength() > 0 && file.getLength() <= maxEntryBytes;
+    }
+
+    // Returns a read-only view of the cached bytes, or null
+    public ByteBuffer get(GridFsFileDescriptor file) {
+        ByteBuffer buffer = contents.getIfPresent(file.getFileId());
+        return buffer != null ? buffer.asReadOnlyBuffer() : null;
+    }
+
+    // Returns a read-only view of the file's bytes, reading them from source on a miss. Concurrent
+    // misses for the same file wait for a single load.
+    public ByteBuffer get(GridFsFileDescriptor file, StreamSource source) throws IOException {
+        try {
+            return contents.get(file.getFileId(), fileId -> load(file, source)).asReadOnlyBuffer();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void invalidate(String fileId) {
+        contents.invalidate(fileId);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = contents.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("entries", contents.estimatedSize());
+        result.put("bytes", contents.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        result.put("maxBytes", contents.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(0L));
+        result.put("maxEntryBytes", maxEntryBytes);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface StreamSource {
+        InputStream open() throws IOException;
+    }
+
+    private ByteBuffer load(GridFsFileDescriptor file, StreamSource source) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) file.getLength());
+        byte[] copy = new byte[COPY_BUFFER_SIZE];
+        try (InputStream in = source.open()) {
+            int read;
+            while (buffer.hasRemaining() && (read = in.read(copy, 0, Math.min(copy.length, buffer.remaining()))) != -1) {
+                buffer.put(copy, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new UncheckedIOException(new IOException("GridFS file " + file.getFileId() + " ended after "
+                    + buffer.position() + " of " + file.getLength() + " bytes"));
+        }
+        buffer.flip();
+        logger.debug("Cached {} bytes of GridFS file {}", file.getLength(), file.getFileId());
+        return buffer;
+    }
+}
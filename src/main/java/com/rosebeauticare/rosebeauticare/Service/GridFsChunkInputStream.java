@@ -0,0 +1,136 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.types.Binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads a GridFS file's chunks directly from <bucket>.chunks using an already resolved descriptor,
+// so opening the stream does not repeat the fs.files lookup. The stream covers [start, end) of the
+// file; starting or skipping past byte 0 moves to the target chunk without fetching the ones before it.
+class GridFsChunkInputStream extends InputStream {
+
+    private final MongoCollection<Document> chunks;
+    private final GridFsFileDescriptor file;
+    private final int chunkBatchSize;
+    private final long end;
+
+    private long position;
+    private MongoCursor<Document> cursor;
+    private byte[] buffer;
+    private int bufferChunkIndex = -1;
+    private boolean closed;
+
+    GridFsChunkInputStream(MongoCollection<Document> chunks, GridFsFileDescriptor file, int chunkBatchSize) {
+        this(chunks, file, chunkBatchSize, 0, file.getLength());
+    }
+
+    GridFsChunkInputStream(MongoCollection<Document> chunks, GridFsFileDescriptor file, int chunkBatchSize,
+            long start, long end) {
+        this.chunks = chunks;
+        this.file = file;
+        this.chunkBatchSize = chunkBatchSize;
+        this.position = Math.max(0, start);
+        this.end = Math.min(end, file.getLength());
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        checkClosed();
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        int chunkIndex = (int) (position / file.getChunkSize());
+        if (buffer == null || bufferChunkIndex != chunkIndex) {
+            loadChunk(chunkIndex);
+        }
+        int chunkOffset = (int) (position % file.getChunkSize());
+        int count = (int) Math.min(Math.min(length, buffer.length - chunkOffset), end - position);
+        System.arraycopy(buffer, chunkOffset, target, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkClosed();
+        if (n <= 0) {
+            return 0;
+        }
+        long target = Math.min(position + n, end);
+        long skipped = target - position;
+        position = target;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        if (buffer == null || bufferChunkIndex != (int) (position / file.getChunkSize())) {
+            return 0;
+        }
+        return (int) Math.min(buffer.length - (position % file.getChunkSize()), end - position);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        discardCursor();
+        buffer = null;
+    }
+
+    private void loadChunk(int chunkIndex) throws IOException {
+        // A cursor can only move forward one chunk at a time; anything else re-opens it at the target chunk
+        if (cursor == null || chunkIndex != bufferChunkIndex + 1) {
+            discardCursor();
+            cursor = chunks.find(Filters.and(Filters.eq("files_id", file.getId()), Filters.gte("n", chunkIndex)))
+                    .sort(Sorts.ascending("n"))
+                    .batchSize(chunkBatchSize)
+                    .iterator();
+        }
+        if (!cursor.hasNext()) {
+            throw new IOException("Missing chunk " + chunkIndex + " for GridFS file " + file.getFileId());
+        }
+        Document chunk = cursor.next();
+        int n = chunk.getInteger("n");
+        if (n != chunkIndex) {
+            throw new IOException("Expected chunk " + chunkIndex + " but found " + n + " for GridFS file "
+                    + file.getFileId());
+        }
+        byte[] data = chunk.get("data", Binary.class).getData();
+        long expectedSize = Math.min(file.getChunkSize(), file.getLength() - (long) chunkIndex * file.getChunkSize());
+        if (data.length != expectedSize) {
+            throw new IOException("Chunk " + chunkIndex + " of GridFS file " + file.getFileId() + " has size "
+                    + data.length + ", expected " + expectedSize);
+        }
+        buffer = data;
+        bufferChunkIndex = chunkIndex;
+    }
+
+    private void discardCursor() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+}
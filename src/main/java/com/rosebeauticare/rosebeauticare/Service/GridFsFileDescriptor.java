@@ -0,0 +1,101 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+
+// Immutable snapshot of an fs.files entry; GridFS files never change once written
+public class GridFsFileDescriptor {
+    private final ObjectId id;
+    private final String bucket;
+    private final String filename;
+    private final String contentType;
+    private final long length;
+    private final int chunkSize;
+    private final Date uploadDate;
+
+    public GridFsFileDescriptor(ObjectId id, String bucket, String filename, String contentType, long length,
+            int chunkSize, Date uploadDate) {
+        this.id = id;
+        this.bucket = bucket;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.uploadDate = uploadDate;
+    }
+
+    public static GridFsFileDescriptor of(GridFSFile file, String bucket) {
+        return new GridFsFileDescriptor(
+                file.getObjectId(),
+                bucket,
+                file.getFilename(),
+                resolveContentType(file.getMetadata()),
+                file.getLength(),
+                file.getChunkSize(),
+                file.getUploadDate());
+    }
+
+    // From a raw <bucket>.files document, for lookups that bypass GridFSBucket
+    public static GridFsFileDescriptor of(Document file, String bucket) {
+        return new GridFsFileDescriptor(
+                file.getObjectId("_id"),
+                bucket,
+                file.getString("filename"),
+                resolveContentType(file.get("metadata", Document.class)),
+                file.get("length", Number.class).longValue(),
+                file.get("chunkSize", Number.class).intValue(),
+                file.getDate("uploadDate"));
+    }
+
+    private static String resolveContentType(Document metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        // Check for standard metadata.contentType
+        String contentType = metadata.getString("contentType");
+        if (contentType == null) {
+            // Check for nested metadata.metadata.contentType (legacy files)
+            Object nestedMetadata = metadata.get("metadata");
+            if (nestedMetadata instanceof Document) {
+                contentType = ((Document) nestedMetadata).getString("contentType");
+            }
+        }
+        return contentType;
+    }
+
+    public ObjectId getId() {
+        return id;
+    }
+
+    public String getFileId() {
+        return id.toHexString();
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    // May be null for files stored without content type metadata
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public Date getUploadDate() {
+        return uploadDate;
+    }
+}
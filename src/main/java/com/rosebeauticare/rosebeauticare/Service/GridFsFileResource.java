@@ -0,0 +1,61 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Spring Resource over a resolved GridFS descriptor, optionally limited to a byte range;
+// every getInputStream() opens a fresh chunk stream
+public class GridFsFileResource extends AbstractResource {
+
+    private final GridFsFileDescriptor file;
+    private final GridFsService gridFsService;
+    private final long offset;
+    private final long count;
+
+    public GridFsFileResource(GridFsFileDescriptor file, GridFsService gridFsService) {
+        this(file, gridFsService, 0, file.getLength());
+    }
+
+    public GridFsFileResource(GridFsFileDescriptor file, GridFsService gridFsService, long offset, long count) {
+        this.file = file;
+        this.gridFsService = gridFsService;
+        this.offset = offset;
+        this.count = count;
+    }
+
+    public GridFsFileDescriptor getDescriptor() {
+        return file;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return gridFsService.openStream(file, offset, count);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return count;
+    }
+
+    @Override
+    public long lastModified() {
+        return file.getUploadDate() != null ? file.getUploadDate().getTime() : 0;
+    }
+
+    @Override
+    public String getFilename() {
+        return file.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return "GridFS file [" + file.getBucket() + "/" + file.getFileId() + "]";
+    }
+}
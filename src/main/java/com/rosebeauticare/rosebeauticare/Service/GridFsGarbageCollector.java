@@ -0,0 +1,359 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.rosebeauticare.rosebeauticare.Config.CacheConfig;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Nightly reconciliation of the GridFS buckets against the staff and orders collections. Files nobody
+// references, and that no completed upload session still hands out, are deleted once the grace period
+// has passed since they were stored or last reused by deduplication (an upload is stored before the
+// record that points at it is saved); references to files that no longer exist are reported. Everything
+// is read in keyset-paged batches with a pause in between so a run never floods the cluster.
+@Component
+public class GridFsGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridFsGarbageCollector.class);
+    private static final String STAFF_COLLECTION = "staff";
+    private static final String ORDERS_COLLECTION = "orders";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private FileContentCache contentCache;
+
+    @Value("${gridfs.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gridfs.gc.dry-run:false}")
+    private boolean dryRun;
+
+    @Value("${gridfs.gc.batch-size:200}")
+    private int batchSize;
+
+    @Value("${gridfs.gc.batch-pause-ms:500}")
+    private long batchPauseMs;
+
+    @Value("${gridfs.gc.grace-period-hours:24}")
+    private long gracePeriodHours;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile GridFsGcReport lastReport;
+
+    @Scheduled(cron = "${gridfs.gc.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            logger.debug("GridFS garbage collection is disabled");
+            return;
+        }
+        run();
+    }
+
+    // Returns null if a run is already in progress
+    public GridFsGcReport run() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("GridFS garbage collection already running; skipping");
+            return null;
+        }
+        GridFsGcReport report = new GridFsGcReport();
+        report.setDryRun(dryRun);
+        try {
+            logger.info("GridFS garbage collection started (dryRun: {}, batchSize: {}, gracePeriod: {}h)", dryRun,
+                    batchSize, gracePeriodHours);
+            for (String bucket : GridFsService.BUCKETS) {
+                collectOrphans(bucket, report);
+            }
+            reportDanglingReferences(STAFF_COLLECTION, List.of("photo", "documentphoto"), report);
+            reportDanglingReferences(ORDERS_COLLECTION, List.of("images.fileId"), report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.setError("Interrupted");
+        } catch (RuntimeException e) {
+            logger.error("GridFS garbage collection failed", e);
+            report.setError(e.getMessage());
+        } finally {
+            report.finish();
+            lastReport = report;
+            running.set(false);
+        }
+        logger.info("GridFS garbage collection finished: scanned {}, deleted {} files and {} derivatives, "
+                + "{} within grace period, {} dangling references", report.getFilesScanned(),
+                report.getFilesDeleted(), report.getDerivativesDeleted(), report.getFilesWithinGracePeriod(),
+                report.getDanglingReferenceCount());
+        return report;
+    }
+
+    public GridFsGcReport getLastReport() {
+        return lastReport;
+    }
+
+    private void collectOrphans(String bucketName, GridFsGcReport report) throws InterruptedException {
+        MongoCollection<Document> files = mongoTemplate.getCollection(bucketName + ".files");
+        GridFSBucket bucket = GridFSBuckets.create(mongoTemplate.getDb(), bucketName);
+        Date cutoff = Date.from(Instant.now().minus(Duration.ofHours(gracePeriodHours)));
+
+        forEachBatch(files, Projections.include("_id", "uploadDate", "metadata.lastUsedAt", "metadata.derivativeOf",
+                "metadata.originalOf"), batch -> {
+            report.addFilesScanned(batch.size());
+            List<String> originalIds = new ArrayList<>();
+            Set<ObjectId> parentIds = new HashSet<>();
+            for (Document file : batch) {
+                ObjectId parent = derivativeOf(file);
+                if (parent != null) {
+                    parentIds.add(parent);
+                } else {
+                    originalIds.add(file.getObjectId("_id").toHexString());
+                }
+            }
+            Set<String> referenced = findReferencedFileIds(originalIds);
+            Set<ObjectId> existingParents = existingIds(files, parentIds);
+
+            List<ObjectId> orphans = new ArrayList<>();
+            List<ObjectId> orphanDerivatives = new ArrayList<>();
+            for (Document file : batch) {
+                ObjectId id = file.getObjectId("_id");
+                ObjectId parent = derivativeOf(file);
+                // Derivatives live as long as their original; originals as long as something points at them
+                boolean live = parent != null ? existingParents.contains(parent) : referenced.contains(id.toHexString());
+                if (live) {
+                    continue;
+                }
+                Date lastUsed = lastUsed(file);
+                if (lastUsed != null && lastUsed.after(cutoff)) {
+                    report.addFilesWithinGracePeriod(1);
+                } else if (parent != null) {
+                    orphanDerivatives.add(id);
+                } else {
+                    orphans.add(id);
+                }
+            }
+            orphans = stillOrphaned(files, orphans, cutoff);
+            report.addFilesDeleted(delete(bucket, orphans));
+            report.addDerivativesDeleted(delete(bucket, orphanDerivatives));
+            if (!orphans.isEmpty()) {
+                // Derivatives are newer than their original, so they would only be reached in a later batch
+                List<ObjectId> derivatives = new ArrayList<>();
+                files.find(Filters.or(Filters.in("metadata.derivativeOf", orphans),
+                                Filters.in("metadata.originalOf", orphans)))
+                        .projection(Projections.include("_id"))
+                        .forEach(derivative -> derivatives.add(derivative.getObjectId("_id")));
+                report.addDerivativesDeleted(delete(bucket, derivatives));
+            }
+        });
+    }
+
+    // Checks the candidates again right before deleting them, since the batch was read: a direct upload
+    // may have reused one through deduplication (an owner, or lastUsedAt for an ownerless one) or a record
+    // may have been saved pointing at it
+    private List<ObjectId> stillOrphaned(MongoCollection<Document> files, List<ObjectId> candidates, Date cutoff) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        List<ObjectId> unused = new ArrayList<>();
+        files.find(Filters.and(Filters.in("_id", candidates),
+                        Filters.not(Filters.gt("metadata.refCount", 0)),
+                        Filters.not(Filters.gt("metadata.lastUsedAt", cutoff))))
+                .projection(Projections.include("_id"))
+                .forEach(file -> unused.add(file.getObjectId("_id")));
+        Set<String> referenced = findReferencedFileIds(unused.stream().map(ObjectId::toHexString).toList());
+        unused.removeIf(id -> referenced.contains(id.toHexString()));
+        if (unused.size() < candidates.size()) {
+            logger.info("{} GridFS files were reused during garbage collection; keeping them",
+                    candidates.size() - unused.size());
+        }
+        return unused;
+    }
+
+    private void reportDanglingReferences(String collectionName, List<String> fields, GridFsGcReport report)
+            throws InterruptedException {
+        MongoCollection<Document> documents = mongoTemplate.getCollection(collectionName);
+        List<String> projected = new ArrayList<>(fields);
+        projected.add("_id");
+
+        forEachBatch(documents, Projections.include(projected), batch -> {
+            Set<ObjectId> fileIds = new HashSet<>();
+            for (Document document : batch) {
+                for (String field : fields) {
+                    for (String fileId : values(document, field)) {
+                        if (ObjectId.isValid(fileId)) {
+                            fileIds.add(new ObjectId(fileId));
+                        }
+                    }
+                }
+            }
+            // A reference may point into any bucket
+            Set<ObjectId> existing = new HashSet<>();
+            for (String bucket : GridFsService.BUCKETS) {
+                existing.addAll(existingIds(mongoTemplate.getCollection(bucket + ".files"), fileIds));
+            }
+            for (Document document : batch) {
+                for (String field : fields) {
+                    for (String fileId : values(document, field)) {
+                        if (!ObjectId.isValid(fileId) || !existing.contains(new ObjectId(fileId))) {
+                            String documentId = String.valueOf(document.get("_id"));
+                            logger.warn("Dangling GridFS reference: {}.{} of {} points at missing file {}",
+                                    collectionName, field, documentId, fileId);
+                            report.addDanglingReference(new GridFsGcReport.DanglingReference(collectionName,
+                                    documentId, field, fileId));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private void forEachBatch(MongoCollection<Document> collection, Bson projection, Consumer<List<Document>> action)
+            throws InterruptedException {
+        Object lastId = null;
+        while (true) {
+            Bson filter = lastId == null ? new Document() : Filters.gt("_id", lastId);
+            List<Document> batch = collection.find(filter)
+                    .projection(projection)
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                return;
+            }
+            action.accept(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+            Thread.sleep(batchPauseMs);
+        }
+    }
+
+    private Set<String> findReferencedFileIds(List<String> fileIds) {
+        Set<String> referenced = new HashSet<>();
+        if (fileIds.isEmpty()) {
+            return referenced;
+        }
+        mongoTemplate.getCollection(STAFF_COLLECTION)
+                .find(Filters.or(Filters.in("photo", fileIds), Filters.in("documentphoto", fileIds)))
+                .projection(Projections.include("photo", "documentphoto"))
+                .forEach(staff -> {
+                    referenced.addAll(values(staff, "photo"));
+                    referenced.addAll(values(staff, "documentphoto"));
+                });
+        mongoTemplate.getCollection(ORDERS_COLLECTION)
+                .find(Filters.in("images.fileId", fileIds))
+                .projection(Projections.include("images.fileId"))
+                .forEach(order -> referenced.addAll(values(order, "images.fileId")));
+        mongoTemplate.getCollection(UploadSessionService.SESSIONS_COLLECTION)
+                .find(UploadSessionService.completedSessionsOf(fileIds))
+                .projection(Projections.include("fileId"))
+                .forEach(session -> referenced.addAll(values(session, "fileId")));
+        return referenced;
+    }
+
+    private Set<ObjectId> existingIds(MongoCollection<Document> files, Set<ObjectId> ids) {
+        Set<ObjectId> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            files.find(Filters.in("_id", ids)).projection(Projections.include("_id"))
+                    .forEach(file -> existing.add(file.getObjectId("_id")));
+        }
+        return existing;
+    }
+
+    private long delete(GridFSBucket bucket, List<ObjectId> ids) {
+        if (dryRun) {
+            ids.forEach(id -> logger.info("Dry run: would delete GridFS file {}", id));
+            return ids.size();
+        }
+        Cache descriptors = cacheManager.getCache(CacheConfig.GRIDFS_FILES);
+        Cache derivatives = cacheManager.getCache(CacheConfig.IMAGE_DERIVATIVES);
+        long deleted = 0;
+        for (ObjectId id : ids) {
+            try {
+                bucket.delete(id);
+                deleted++;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to delete GridFS file {}: {}", id, e.getMessage());
+                continue;
+            }
+            descriptors.evict(id.toHexString());
+            contentCache.invalidate(id.toHexString());
+            for (ImageDerivativeService.Size size : ImageDerivativeService.Size.values()) {
+                derivatives.evict(id.toHexString() + ":" + size.getName());
+            }
+            logger.info("Deleted unreferenced GridFS file {}", id);
+        }
+        return deleted;
+    }
+
+    // When the file was stored, or handed out again by deduplication, whichever is later
+    private static Date lastUsed(Document file) {
+        Date uploadDate = file.getDate("uploadDate");
+        Document metadata = file.get("metadata", Document.class);
+        Date lastUsedAt = metadata != null ? metadata.getDate("lastUsedAt") : null;
+        if (uploadDate == null || lastUsedAt != null && lastUsedAt.after(uploadDate)) {
+            return lastUsedAt;
+        }
+        return uploadDate;
+    }
+
+    // The file another file depends on: thumbnails (derivativeOf) and kept uploads (originalOf)
+    private static ObjectId derivativeOf(Document file) {
+        Document metadata = file.get("metadata", Document.class);
+        if (metadata == null) {
+            return null;
+        }
+        Object parent = metadata.get("derivativeOf");
+        if (parent == null) {
+            parent = metadata.get("originalOf");
+        }
+        return parent instanceof ObjectId ? (ObjectId) parent : null;
+    }
+
+    // Values of a top-level string field, or of a string field inside an array of subdocuments ("images.fileId")
+    private static List<String> values(Document document, String path) {
+        List<String> result = new ArrayList<>();
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            Object value = document.get(path);
+            if (value instanceof String && !((String) value).isEmpty()) {
+                result.add((String) value);
+            }
+            return result;
+        }
+        Object nested = document.get(path.substring(0, dot));
+        if (nested instanceof List<?>) {
+            for (Object element : (List<?>) nested) {
+                if (element instanceof Document) {
+                    result.addAll(values((Document) element, path.substring(dot + 1)));
+                }
+            }
+        }
+        return result;
+    }
+}
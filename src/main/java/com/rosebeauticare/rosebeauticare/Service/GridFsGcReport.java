@@ -0,0 +1,130 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of one GridFsGarbageCollector run
+public class GridFsGcReport {
+
+    private static final int MAX_DANGLING_SAMPLES = 50;
+
+    private final Instant startedAt = Instant.now();
+    private Instant finishedAt;
+    private boolean dryRun;
+    private long filesScanned;
+    private long filesDeleted;
+    private long derivativesDeleted;
+    private long filesWithinGracePeriod;
+    private long danglingReferenceCount;
+    private final List<DanglingReference> danglingReferences = new ArrayList<>();
+    private String error;
+
+    // A staff or order field pointing at a GridFS file that does not exist
+    public static class DanglingReference {
+        private final String collection;
+        private final String documentId;
+        private final String field;
+        private final String fileId;
+
+        public DanglingReference(String collection, String documentId, String field, String fileId) {
+            this.collection = collection;
+            this.documentId = documentId;
+            this.field = field;
+            this.fileId = fileId;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getFileId() {
+            return fileId;
+        }
+    }
+
+    void addDanglingReference(DanglingReference reference) {
+        danglingReferenceCount++;
+        if (danglingReferences.size() < MAX_DANGLING_SAMPLES) {
+            danglingReferences.add(reference);
+        }
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public long getFilesScanned() {
+        return filesScanned;
+    }
+
+    void addFilesScanned(long count) {
+        filesScanned += count;
+    }
+
+    public long getFilesDeleted() {
+        return filesDeleted;
+    }
+
+    void addFilesDeleted(long count) {
+        filesDeleted += count;
+    }
+
+    public long getDerivativesDeleted() {
+        return derivativesDeleted;
+    }
+
+    void addDerivativesDeleted(long count) {
+        derivativesDeleted += count;
+    }
+
+    public long getFilesWithinGracePeriod() {
+        return filesWithinGracePeriod;
+    }
+
+    void addFilesWithinGracePeriod(long count) {
+        filesWithinGracePeriod += count;
+    }
+
+    public long getDanglingReferenceCount() {
+        return danglingReferenceCount;
+    }
+
+    // At most MAX_DANGLING_SAMPLES entries; getDanglingReferenceCount has the total
+    public List<DanglingReference> getDanglingReferences() {
+        return Collections.unmodifiableList(danglingReferences);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+}
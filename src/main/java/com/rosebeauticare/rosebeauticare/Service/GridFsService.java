@@ -1,50 +1,270 @@
 package com.rosebeauticare.rosebeauticare.Service;
 
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.rosebeauticare.rosebeauticare.Config.CacheConfig;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GridFsService {
 
     private static final Logger logger = LoggerFactory.getLogger(GridFsService.class);
     private static final String[] ALLOWED_CONTENT_TYPES = { "image/jpeg", "image/png" };
+    public static final String FALLBACK_CONTENT_TYPE = "application/octet-stream";
+    public static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+    static final String DEFAULT_BUCKET = FileCategory.LEGACY_BUCKET;
+    // Every bucket a fileId may live in; category buckets first, the legacy bucket last
+    static final List<String> BUCKETS = Stream.concat(
+            Arrays.stream(FileCategory.values()).map(FileCategory::getBucket), Stream.of(DEFAULT_BUCKET))
+            .collect(Collectors.toUnmodifiableList());
+    // Driver default, used for the legacy bucket
+    private static final int DEFAULT_CHUNK_SIZE = 255 * 1024;
+    // Fetch a few chunks per round trip
+    private static final int CHUNK_BATCH_SIZE = 4;
+    private static final String BUCKET_FIELD = "_bucket";
 
     @Autowired
     private GridFsTemplate gridFsTemplate;
 
-    public String storeFile(MultipartFile file, String staffId) throws IOException {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MissingFileCache missingFiles;
+
+    @Autowired
+    private FileContentCache contentCache;
+
+    @Autowired
+    private ImageIngestService imageIngestService;
+
+    @Autowired
+    private MongoIndexManager indexManager;
+
+    public String storeFile(MultipartFile file, FileCategory category, String ownerId) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be null or empty");
         }
-        if (file.getSize() > 5 * 1024 * 1024) {
+        validateUpload(file.getSize(), file.getContentType());
+        return store(file.getBytes(), file.getOriginalFilename(), file.getContentType(), category, ownerId);
+    }
+
+    // Stores an upload assembled from a chunked upload session. The file has no owner until a staff or
+    // order record claims it; an unclaimed file is removed by the orphan collector after its grace period.
+    public String storeUpload(byte[] data, String filename, String contentType, FileCategory category)
+            throws IOException {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+        validateUpload(data.length, contentType);
+        return store(data, filename, contentType, category, null);
+    }
+
+    // Size and content type limits shared by direct and chunked uploads
+    public static void validateUpload(long size, String contentType) {
+        if (size > MAX_FILE_SIZE) {
             throw new IllegalArgumentException("File size exceeds 5MB limit");
         }
-        String contentType = file.getContentType();
         if (contentType == null || !Arrays.asList(ALLOWED_CONTENT_TYPES).contains(contentType)) {
             logger.warn("Invalid content type for file: {}", contentType);
             throw new IllegalArgumentException("Invalid content type: " + contentType);
         }
+    }
+
+    // Adds ownerId as an owner of an already stored file, e.g. one finalized by an upload session
+    public GridFsFileDescriptor claimFile(String fileId, String ownerId) {
+        GridFsFileDescriptor file = describe(fileId);
+        if (file == null) {
+            throw new IllegalArgumentException("File not found: " + fileId);
+        }
+        addOwner(file, ownerId);
+        missingFiles.invalidateOwner(ownerId);
+        logger.info("GridFS file {} claimed by owner {}", fileId, ownerId);
+        return file;
+    }
+
+    private String store(byte[] data, String filename, String contentType, FileCategory category, String ownerId)
+            throws IOException {
+        // Hash the uploaded bytes before writing anything, so a duplicate is never written at all (hashing
+        // while streaming would have to write the chunks first and delete them again on a match). The hash
+        // is of the upload, not the re-encoded result, so the same upload always finds the same file.
+        String sha256 = sha256(data);
+        GridFsFileDescriptor existing = findByHash(category.getBucket(), sha256);
+        if (existing != null) {
+            // Restarts the orphan collector's grace period: an unowned file is about to be handed out again
+            filesCollection(existing.getBucket()).updateOne(Filters.eq("_id", existing.getId()),
+                    Updates.set("metadata.lastUsedAt", new Date()));
+            addOwner(existing, ownerId);
+            missingFiles.invalidateOwner(ownerId);
+            logger.info("Reusing GridFS file {} in bucket {} for identical upload, sha256: {}, owner: {}",
+                    existing.getFileId(), category.getBucket(), sha256, ownerId);
+            return existing.getFileId();
+        }
+
+        ImageIngestService.Processed processed = imageIngestService.process(data, contentType);
+        byte[] stored = processed != null ? processed.getData() : data;
+        String storedContentType = processed != null ? processed.getContentType() : contentType;
+
+        List<String> owners = ownerId != null ? List.of(ownerId) : List.of();
+        Document metadata = new Document()
+                .append("contentType", storedContentType)
+                .append("sha256", sha256)
+                .append("owners", owners)
+                .append("refCount", owners.size());
+        if (processed != null) {
+            metadata.append("sourceLength", (long) data.length)
+                    .append("width", processed.getWidth())
+                    .append("height", processed.getHeight());
+        }
         GridFSUploadOptions options = new GridFSUploadOptions()
-                .metadata(new org.bson.Document()
-                        .append("contentType", contentType)
-                        .append("staffId", staffId));
-        ObjectId fileId = gridFsTemplate.store(
-                file.getInputStream(),
-                file.getOriginalFilename(),
-                options); // Remove contentType parameter
-        logger.info("Stored file in GridFS with ID: {}, contentType: {}, staffId: {}", fileId, contentType, staffId);
+                .chunkSizeBytes(category.getChunkSize())
+                .metadata(metadata);
+        ObjectId fileId = bucket(category.getBucket())
+                .uploadFromStream(filename(filename), new ByteArrayInputStream(stored), options);
+        logger.info("Stored file in GridFS bucket {} with ID: {}, contentType: {}, owner: {}, {} of {} uploaded bytes",
+                category.getBucket(), fileId, storedContentType, ownerId, stored.length, data.length);
+
+        if (processed != null && imageIngestService.isKeepOriginal()) {
+            // Linked by metadata.originalOf, so the orphan collector keeps it as long as the processed file
+            GridFSUploadOptions originalOptions = new GridFSUploadOptions()
+                    .chunkSizeBytes(category.getChunkSize())
+                    .metadata(new Document()
+                            .append("contentType", contentType)
+                            .append("originalOf", fileId));
+            ObjectId originalId = bucket(category.getBucket())
+                    .uploadFromStream(filename(filename), new ByteArrayInputStream(data), originalOptions);
+            logger.debug("Kept original upload of file {} as {}", fileId, originalId);
+        }
+        missingFiles.invalidateOwner(ownerId);
         return fileId.toString();
     }
 
+    // Drops one reference held by ownerId; files are only deleted by the orphan collector, which
+    // checks the staff and orders collections rather than trusting the counter alone
+    public void releaseFile(String fileId, String ownerId) {
+        GridFsFileDescriptor file = describe(fileId);
+        if (file == null) {
+            return;
+        }
+        Bson filter = Filters.and(Filters.eq("_id", file.getId()), Filters.gt("metadata.refCount", 0));
+        Bson update = ownerId != null
+                ? Updates.combine(Updates.inc("metadata.refCount", -1), Updates.pull("metadata.owners", ownerId))
+                : Updates.inc("metadata.refCount", -1);
+        long modified = filesCollection(file.getBucket()).updateOne(filter, update).getModifiedCount();
+        logger.debug("Released GridFS file {} for owner {} (modified: {})", fileId, ownerId, modified);
+    }
+
+    // Undoes a storeFile for ownerId: drops its reference, and deletes the file (with any kept original)
+    // if that leaves it unowned. A file shared through deduplication with another owner, or with an
+    // upload session that has not been claimed yet, is kept.
+    @CacheEvict(value = CacheConfig.GRIDFS_FILES, key = "#fileId")
+    public void discardFile(String fileId, String ownerId) {
+        releaseFile(fileId, ownerId);
+        GridFsFileDescriptor file = describe(fileId);
+        if (file == null) {
+            return;
+        }
+        MongoCollection<Document> files = filesCollection(file.getBucket());
+        if (files.find(Filters.and(Filters.eq("_id", file.getId()), Filters.lte("metadata.refCount", 0))).first() == null) {
+            logger.debug("GridFS file {} is still referenced; not deleting", fileId);
+            return;
+        }
+        if (mongoTemplate.getCollection(UploadSessionService.SESSIONS_COLLECTION)
+                .find(UploadSessionService.completedSessionsOf(List.of(fileId))).first() != null) {
+            logger.debug("GridFS file {} is held by a completed upload session; not deleting", fileId);
+            return;
+        }
+        GridFSBucket bucket = bucket(file.getBucket());
+        files.find(Filters.eq("metadata.originalOf", file.getId())).projection(new Document("_id", 1))
+                .forEach(original -> bucket.delete(original.getObjectId("_id")));
+        bucket.delete(file.getId());
+        contentCache.invalidate(fileId);
+        logger.info("Discarded GridFS file {} from bucket {}", fileId, file.getBucket());
+    }
+
+    private GridFsFileDescriptor findByHash(String bucket, String sha256) {
+        ensureIndexes(bucket);
+        Document file = filesCollection(bucket).find(Filters.eq("metadata.sha256", sha256)).first();
+        return file != null ? GridFsFileDescriptor.of(file, bucket) : null;
+    }
+
+    // Counts each owner once: uploading the same bytes again for the same owner changes nothing, and
+    // an ownerless upload (see storeUpload) adds no reference
+    private void addOwner(GridFsFileDescriptor file, String ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        Bson filter = Filters.and(Filters.eq("_id", file.getId()), Filters.ne("metadata.owners", ownerId));
+        Bson update = Updates.combine(Updates.inc("metadata.refCount", 1), Updates.addToSet("metadata.owners", ownerId));
+        filesCollection(file.getBucket()).updateOne(filter, update);
+    }
+
+    // Per-bucket metadata indexes (declared in MongoIndexManager), ensured before a bucket is first searched
+    private void ensureIndexes(String bucket) {
+        indexManager.ensure(bucket + ".files");
+    }
+
+    private GridFSBucket bucket(String bucket) {
+        return GridFSBuckets.create(mongoTemplate.getDb(), bucket);
+    }
+
+    private MongoCollection<Document> filesCollection(String bucket) {
+        return mongoTemplate.getCollection(bucket + ".files");
+    }
+
+    private static int chunkSizeFor(String bucket) {
+        for (FileCategory category : FileCategory.values()) {
+            if (category.getBucket().equals(bucket)) {
+                return category.getChunkSize();
+            }
+        }
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    private static String filename(String originalFilename) {
+        return originalFilename != null ? originalFilename : "";
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     // Deprecate or remove unused method
     @Deprecated
     public String storeFile(MultipartFile file) throws IOException {
@@ -65,4 +285,98 @@ public class GridFsService {
         logger.info("Stored file in GridFS with ID: {}, contentType: {}", fileId, contentType);
         return fileId.toString();
     }
-}
\ No newline at end of file
+
+    // A fileId may live in any bucket, so one aggregation looks in all of them ($unionWith) and tags the
+    // match with its bucket: a single round trip per file. Descriptors are immutable so they are cached;
+    // misses are remembered briefly in MissingFileCache so a broken reference does not repeat the lookup.
+    @Cacheable(value = CacheConfig.GRIDFS_FILES, key = "#fileId", unless = "#result == null")
+    public GridFsFileDescriptor describe(String fileId) {
+        if (fileId == null || !ObjectId.isValid(fileId)) {
+            return null;
+        }
+        if (missingFiles.isKnownMissing(fileId)) {
+            logger.debug("GridFS file {} is known to be missing", fileId);
+            return null;
+        }
+        Bson match = Aggregates.match(Filters.eq("_id", new ObjectId(fileId)));
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(match);
+        pipeline.add(Aggregates.addFields(new Field<>(BUCKET_FIELD, BUCKETS.get(0))));
+        for (String bucket : BUCKETS.subList(1, BUCKETS.size())) {
+            pipeline.add(Aggregates.unionWith(bucket + ".files",
+                    List.of(match, Aggregates.addFields(new Field<>(BUCKET_FIELD, bucket)))));
+        }
+        pipeline.add(Aggregates.limit(1));
+        Document file = filesCollection(BUCKETS.get(0)).aggregate(pipeline).first();
+        if (file == null) {
+            missingFiles.recordMissing(fileId);
+            return null;
+        }
+        return GridFsFileDescriptor.of(file, file.getString(BUCKET_FIELD));
+    }
+
+    // Links a missing file to the record that references it; storing a file for that owner clears the entry
+    public void recordMissingOwner(String fileId, String ownerId) {
+        missingFiles.recordOwner(fileId, ownerId);
+    }
+
+    // Opens a lazy chunk stream for an already resolved file; no further fs.files lookup is made
+    public InputStream openStream(GridFsFileDescriptor file) throws IOException {
+        return openStream(file, 0, file.getLength());
+    }
+
+    // Opens a stream over bytes [offset, offset + count); reading starts at the chunk holding offset.
+    // Files small enough for FileContentCache are read whole once and then served from memory.
+    public InputStream openStream(GridFsFileDescriptor file, long offset, long count) throws IOException {
+        if (contentCache.accepts(file)) {
+            ByteBuffer content = contentCache.get(file, () -> openChunkStream(file, 0, file.getLength()));
+            content.position((int) Math.min(offset, content.limit()));
+            content.limit((int) Math.min(offset + count, content.limit()));
+            return new ByteBufferInputStream(content);
+        }
+        return openChunkStream(file, offset, count);
+    }
+
+    private InputStream openChunkStream(GridFsFileDescriptor file, long offset, long count) {
+        MongoCollection<Document> chunks = mongoTemplate.getCollection(file.getBucket() + ".chunks");
+        return new GridFsChunkInputStream(chunks, file, CHUNK_BATCH_SIZE, offset, offset + count);
+    }
+
+    // Derivatives live in their original's bucket, linked through metadata.derivativeOf / derivativeSize
+    public GridFsFileDescriptor findDerivative(GridFsFileDescriptor original, String size) {
+        ensureIndexes(original.getBucket());
+        Document file = filesCollection(original.getBucket())
+                .find(Filters.and(Filters.eq("metadata.derivativeOf", original.getId()),
+                        Filters.eq("metadata.derivativeSize", size)))
+                .first();
+        return file != null ? GridFsFileDescriptor.of(file, original.getBucket()) : null;
+    }
+
+    public GridFsFileDescriptor storeDerivative(GridFsFileDescriptor original, String size, byte[] data,
+            String contentType) {
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .chunkSizeBytes(chunkSizeFor(original.getBucket()))
+                .metadata(new Document()
+                        .append("contentType", contentType)
+                        .append("derivativeOf", original.getId())
+                        .append("derivativeSize", size));
+        ObjectId fileId = bucket(original.getBucket()).uploadFromStream(
+                derivativeFilename(original, size, contentType), new ByteArrayInputStream(data), options);
+        logger.info("Stored {} derivative {} of file {} ({} bytes)", size, fileId, original.getFileId(), data.length);
+        return describe(fileId.toHexString());
+    }
+
+    private String derivativeFilename(GridFsFileDescriptor original, String size, String contentType) {
+        String base = original.getFilename() != null && !original.getFilename().isEmpty()
+                ? original.getFilename() : original.getFileId();
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) {
+            base = base.substring(0, dot);
+        }
+        return base + "-" + size + (ImageProcessor.PNG.equals(contentType) ? ".png" : ".jpg");
+    }
+
+    public String getContentType(GridFsFileDescriptor file) {
+        return file.getContentType() != null ? file.getContentType() : FALLBACK_CONTENT_TYPE;
+    }
+}
@@ -0,0 +1,134 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Config.CacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+// Fixed-size thumbnails of stored images, generated lazily on first request and kept in GridFS
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    public enum Size {
+        SMALL(160), MEDIUM(480), LARGE(1024);
+
+        private final int maxDimension;
+
+        Size(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        // Returns null for unknown names
+        public static Size parse(String name) {
+            for (Size size : values()) {
+                if (size.getName().equalsIgnoreCase(name)) {
+                    return size;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private GridFsService gridFsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${images.derivatives.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${images.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    private final ConcurrentHashMap<String, Object> generationLocks = new ConcurrentHashMap<>();
+    private final Semaphore generationPermits;
+
+    public ImageDerivativeService(@Value("${images.derivatives.max-concurrent:2}") int maxConcurrent) {
+        // Decoding a full-size photo takes tens of MB of heap; bound how many run at once
+        this.generationPermits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    // Returns the descriptor to serve for the requested size. Falls back to the original when it is
+    // not a decodable image or already fits the size, so callers can always serve the result.
+    public GridFsFileDescriptor resolve(GridFsFileDescriptor original, Size size) throws IOException {
+        String key = original.getFileId() + ":" + size.getName();
+        Cache cache = cacheManager.getCache(CacheConfig.IMAGE_DERIVATIVES);
+        GridFsFileDescriptor cached = cache.get(key, GridFsFileDescriptor.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object lock = generationLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                // Another request may have generated it while this one waited
+                cached = cache.get(key, GridFsFileDescriptor.class);
+                if (cached != null) {
+                    return cached;
+                }
+                GridFsFileDescriptor derivative = gridFsService.findDerivative(original, size.getName());
+                if (derivative == null) {
+                    derivative = generate(original, size);
+                }
+                cache.put(key, derivative);
+                return derivative;
+            }
+        } finally {
+            generationLocks.remove(key, lock);
+        }
+    }
+
+    private GridFsFileDescriptor generate(GridFsFileDescriptor original, Size size) throws IOException {
+        generationPermits.acquireUninterruptibly();
+        try {
+            byte[] data;
+            try (InputStream in = gridFsService.openStream(original)) {
+                data = in.readAllBytes();
+            }
+            BufferedImage image = ImageProcessor.decode(data, maxPixels);
+            if (image == null) {
+                logger.warn("File {} is not a decodable image within {} pixels; serving the original for size {}",
+                        original.getFileId(), maxPixels, size.getName());
+                return original;
+            }
+            if (Math.max(image.getWidth(), image.getHeight()) <= size.getMaxDimension()
+                    && ImageProcessor.readExifOrientation(data) <= 1) {
+                logger.debug("File {} already fits size {}; serving the original", original.getFileId(),
+                        size.getName());
+                return original;
+            }
+
+            // PNG keeps transparency; everything else becomes JPEG
+            String contentType = ImageProcessor.PNG.equals(original.getContentType())
+                    ? ImageProcessor.PNG : ImageProcessor.JPEG;
+            BufferedImage scaled = ImageProcessor.scaleToFit(image, size.getMaxDimension());
+            byte[] encoded = ImageProcessor.encode(scaled, contentType, jpegQuality);
+            GridFsFileDescriptor stored = gridFsService.storeDerivative(original, size.getName(), encoded, contentType);
+            return stored != null ? stored : original;
+        } finally {
+            generationPermits.release();
+        }
+    }
+}
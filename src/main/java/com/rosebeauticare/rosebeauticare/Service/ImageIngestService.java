@@ -0,0 +1,127 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+// Upload-time normalisation of images: applies the EXIF orientation, downscales to a maximum dimension
+// and re-encodes. EXIF (camera and GPS data) is never stored: re-encoding drops it, and an upload kept
+// as is has its EXIF segments removed without touching the image data.
+@Service
+public class ImageIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageIngestService.class);
+
+    private final boolean enabled;
+    private final int maxDimension;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final boolean keepOriginal;
+    private final Semaphore permits;
+
+    public ImageIngestService(
+            @Value("${images.ingest.enabled:true}") boolean enabled,
+            @Value("${images.ingest.max-dimension:1600}") int maxDimension,
+            @Value("${images.ingest.jpeg-quality:0.85}") float jpegQuality,
+            @Value("${images.ingest.max-pixels:40000000}") long maxPixels,
+            @Value("${images.ingest.keep-original:false}") boolean keepOriginal,
+            @Value("${images.ingest.max-concurrent:2}") int maxConcurrent) {
+        this.enabled = enabled;
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        this.keepOriginal = keepOriginal;
+        // A decoded phone photo takes tens of MB of heap; bound how many uploads decode at once
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public static class Processed {
+        private final byte[] data;
+        private final String contentType;
+        private final int width;
+        private final int height;
+
+        Processed(byte[] data, String contentType, int width, int height) {
+            this.data = data;
+            this.contentType = contentType;
+            this.width = width;
+            this.height = height;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    // null (store as is) when there was no EXIF to remove
+    private static Processed asUploaded(byte[] data, byte[] stripped, String contentType, BufferedImage image) {
+        if (stripped.length == data.length) {
+            return null;
+        }
+        logger.debug("Removed {} bytes of EXIF from upload of {} bytes", data.length - stripped.length, data.length);
+        return new Processed(stripped, contentType, image.getWidth(), image.getHeight());
+    }
+
+    // Whether the uploaded bytes should be stored as well, linked to the processed file
+    public boolean isKeepOriginal() {
+        return keepOriginal;
+    }
+
+    // Returns null when the upload should be stored as is: ingestion disabled, not a decodable image
+    // within the pixel limit, or already without EXIF and either a JPEG or PNG that fits and is upright
+    // (re-encoding it only costs quality or bytes) or an image whose re-encode came out no smaller. In
+    // the last two cases an upload with EXIF is returned as is minus its EXIF.
+    public Processed process(byte[] data, String contentType) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        permits.acquireUninterruptibly();
+        try {
+            BufferedImage image = ImageProcessor.decode(data, maxPixels);
+            if (image == null) {
+                logger.warn("Upload of {} bytes ({}) is not a decodable image within {} pixels; storing as is",
+                        data.length, contentType, maxPixels);
+                return null;
+            }
+            boolean png = ImageProcessor.PNG.equals(contentType);
+            boolean jpeg = ImageProcessor.JPEG.equals(contentType);
+            boolean oversized = Math.max(image.getWidth(), image.getHeight()) > maxDimension;
+            // Stripping EXIF would also drop the orientation, so a rotated image is always re-encoded
+            boolean upright = ImageProcessor.readExifOrientation(data) <= 1;
+            byte[] stripped = upright ? ImageProcessor.stripMetadata(data, contentType) : null;
+            if ((png || jpeg) && !oversized && stripped != null) {
+                return asUploaded(data, stripped, contentType, image);
+            }
+            BufferedImage scaled = ImageProcessor.scaleToFit(image, maxDimension);
+            String targetType = png ? ImageProcessor.PNG : ImageProcessor.JPEG;
+            byte[] encoded = ImageProcessor.encode(scaled, targetType, jpegQuality);
+            if (encoded.length >= data.length && stripped != null) {
+                logger.debug("Re-encoding upload of {}x{} ({} bytes) gave {} bytes; storing as is", image.getWidth(),
+                        image.getHeight(), data.length, encoded.length);
+                return asUploaded(data, stripped, contentType, image);
+            }
+            logger.debug("Re-encoded upload from {}x{} ({} bytes) to {}x{} ({} bytes)", image.getWidth(),
+                    image.getHeight(), data.length, scaled.getWidth(), scaled.getHeight(), encoded.length);
+            return new Processed(encoded, targetType, scaled.getWidth(), scaled.getHeight());
+        } finally {
+            permits.release();
+        }
+    }
+}
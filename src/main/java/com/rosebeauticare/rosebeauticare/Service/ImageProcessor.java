@@ -0,0 +1,306 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+// JDK-only (javax.imageio / java.awt) helpers shared by the thumbnail and upload pipelines
+public final class ImageProcessor {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String PNG = "image/png";
+
+    private ImageProcessor() {
+    }
+
+    // Decodes the image and applies its EXIF orientation, since re-encoding drops the EXIF block.
+    // Returns null if the bytes are not a decodable image or it has more than maxPixels pixels;
+    // the dimensions are read from the header first so an oversized image is never rasterized.
+    public static BufferedImage decode(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                BufferedImage image = reader.read(0);
+                return applyOrientation(image, readExifOrientation(data));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Scales down so the longest side is at most maxDimension; smaller images are returned unchanged
+    public static BufferedImage scaleToFit(BufferedImage image, int maxDimension) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (Math.max(width, height) <= maxDimension) {
+            return image;
+        }
+        double scale = (double) maxDimension / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Halve repeatedly before the final step; a single bilinear pass over a large factor aliases badly
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return resize(current, targetWidth, targetHeight);
+    }
+
+    public static byte[] encode(BufferedImage image, String contentType, float jpegQuality) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (PNG.equals(contentType)) {
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+        BufferedImage rgb = toRgb(image);
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        int type = image.getTransparency() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            // JPEG has no alpha channel; flatten transparent areas onto white
+            graphics.setColor(java.awt.Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    private static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swapsAxes = orientation >= 5;
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2: // mirrored horizontally
+                transform.scale(-1, 1);
+                transform.translate(-width, 0);
+                break;
+            case 3: // rotated 180
+                transform.translate(width, height);
+                transform.rotate(Math.PI);
+                break;
+            case 4: // mirrored vertically
+                transform.scale(1, -1);
+                transform.translate(0, -height);
+                break;
+            case 5: // mirrored along the top-left diagonal
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            case 6: // rotated 90 clockwise
+                transform.translate(height, 0);
+                transform.rotate(Math.PI / 2);
+                break;
+            case 7: // mirrored along the top-right diagonal
+                transform.scale(-1, 1);
+                transform.translate(-height, 0);
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+            case 8: // rotated 90 counter-clockwise
+                transform.translate(0, width);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+            default:
+                return image;
+        }
+        int type = image.getTransparency() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage oriented = new BufferedImage(swapsAxes ? height : width, swapsAxes ? width : height, type);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    // Copies a JPEG without its APP1 segments (Exif, XMP) or a PNG without its eXIf chunks; the image
+    // data is copied byte for byte. Other formats are returned unchanged. Returns null if the structure
+    // is not as expected, in which case the caller should re-encode instead.
+    static byte[] stripMetadata(byte[] data, String contentType) {
+        if (JPEG.equals(contentType)) {
+            return stripJpegMetadata(data);
+        }
+        if (PNG.equals(contentType)) {
+            return stripPngMetadata(data);
+        }
+        return data;
+    }
+
+    private static byte[] stripJpegMetadata(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(data, 0, 2);
+        int offset = 2;
+        while (offset + 4 <= data.length) {
+            if ((data[offset] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[offset + 1] & 0xFF;
+            if (marker == 0xDA) {
+                // Start of scan: the entropy-coded data and everything after it is kept as is
+                out.write(data, offset, data.length - offset);
+                return out.toByteArray();
+            }
+            int segmentLength = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+            if (segmentLength < 2 || offset + 2 + segmentLength > data.length) {
+                return null;
+            }
+            if (marker != 0xE1) {
+                out.write(data, offset, 2 + segmentLength);
+            }
+            offset += 2 + segmentLength;
+        }
+        return null;
+    }
+
+    private static byte[] stripPngMetadata(byte[] data) {
+        if (data.length < 8 || (data[0] & 0xFF) != 0x89 || data[1] != 'P' || data[2] != 'N' || data[3] != 'G') {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(data, 0, 8);
+        int offset = 8;
+        while (offset + 12 <= data.length) {
+            long length = readInt(data, offset, false) & 0xFFFFFFFFL;
+            if (offset + 12 + length > data.length) {
+                return null;
+            }
+            boolean exif = data[offset + 4] == 'e' && data[offset + 5] == 'X' && data[offset + 6] == 'I'
+                    && data[offset + 7] == 'f';
+            if (!exif) {
+                out.write(data, offset, (int) (12 + length));
+            }
+            offset += (int) (12 + length);
+        }
+        return offset == data.length ? out.toByteArray() : null;
+    }
+
+    // Reads the orientation tag (0x0112) from IFD0 of a JPEG's APP1 Exif segment; 1 (normal) if absent
+    static int readExifOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int offset = 2;
+        while (offset + 4 <= data.length) {
+            if ((data[offset] & 0xFF) != 0xFF) {
+                return 1;
+            }
+            int marker = data[offset + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                // Start of scan / end of image: no more metadata segments
+                return 1;
+            }
+            int segmentLength = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+            int segmentStart = offset + 4;
+            if (marker == 0xE1 && segmentStart + 6 <= data.length
+                    && data[segmentStart] == 'E' && data[segmentStart + 1] == 'x'
+                    && data[segmentStart + 2] == 'i' && data[segmentStart + 3] == 'f') {
+                return readTiffOrientation(data, segmentStart + 6, Math.min(data.length, offset + 2 + segmentLength));
+            }
+            offset += 2 + segmentLength;
+        }
+        return 1;
+    }
+
+    private static int readTiffOrientation(byte[] data, int tiffStart, int limit) {
+        if (tiffStart + 8 > limit) {
+            return 1;
+        }
+        boolean littleEndian = data[tiffStart] == 'I' && data[tiffStart + 1] == 'I';
+        int ifdOffset = readInt(data, tiffStart + 4, littleEndian);
+        int ifdStart = tiffStart + ifdOffset;
+        if (ifdOffset < 8 || ifdStart + 2 > limit) {
+            return 1;
+        }
+        int entries = readShort(data, ifdStart, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifdStart + 2 + i * 12;
+            if (entry + 12 > limit) {
+                return 1;
+            }
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                return readShort(data, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
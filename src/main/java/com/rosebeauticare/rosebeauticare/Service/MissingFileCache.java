@@ -0,0 +1,117 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Short-lived record of fileIds that fs.files does not contain, so repeated requests for a broken
+// staff or order record skip the failed lookup. Entries remember which owners pointed at them and how
+// often they were hit, which is what finds the broken records.
+@Component
+public class MissingFileCache {
+
+    private final Cache<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+
+    public MissingFileCache(
+            @Value("${gridfs.missing-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${gridfs.missing-cache.max-size:10000}") long maxSize) {
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public static class Entry {
+        private final String fileId;
+        private final Instant firstSeen = Instant.now();
+        private final Set<String> owners = ConcurrentHashMap.newKeySet();
+        private final LongAdder hits = new LongAdder();
+
+        Entry(String fileId) {
+            this.fileId = fileId;
+        }
+
+        public String getFileId() {
+            return fileId;
+        }
+
+        public Instant getFirstSeen() {
+            return firstSeen;
+        }
+
+        public Set<String> getOwners() {
+            return owners;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+    }
+
+    public boolean isKnownMissing(String fileId) {
+        Entry entry = entries.getIfPresent(fileId);
+        if (entry == null) {
+            return false;
+        }
+        entry.hits.increment();
+        hits.increment();
+        return true;
+    }
+
+    public void recordMissing(String fileId) {
+        entries.get(fileId, Entry::new);
+        recorded.increment();
+    }
+
+    // Attaches the record that points at a missing file, so a later store for that owner can clear it
+    public void recordOwner(String fileId, String ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        Entry entry = entries.getIfPresent(fileId);
+        if (entry != null) {
+            entry.owners.add(ownerId);
+        }
+    }
+
+    public void invalidate(String fileId) {
+        entries.invalidate(fileId);
+    }
+
+    public void invalidateOwner(String ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        entries.asMap().values().removeIf(entry -> entry.owners.contains(ownerId));
+    }
+
+    // Entries ordered by hit count, most requested first
+    public List<Entry> getEntries(int limit) {
+        return entries.asMap().values().stream()
+                .sorted(Comparator.comparingLong(Entry::getHits).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("recorded", recorded.sum());
+        return stats;
+    }
+}
@@ -8,15 +8,23 @@ import com.rosebeauticare.rosebeauticare.Repository.CustomerRepository;
 import com.rosebeauticare.rosebeauticare.Repository.StaffRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.rosebeauticare.rosebeauticare.Config.AsyncConfig;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,7 +46,20 @@ public class OrderService {
     @Autowired
     private GridFsService gridFsService;
 
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    @Qualifier(AsyncConfig.UPLOAD_EXECUTOR)
+    private Executor uploadExecutor;
+
     public Order createOrder(Order order, List<MultipartFile> images) throws IOException {
+        return createOrder(order, images, null);
+    }
+
+    // imageFileIds refer to images completed through an upload session; they count towards the same
+    // limit as images sent with the request
+    public Order createOrder(Order order, List<MultipartFile> images, List<String> imageFileIds) throws IOException {
         logger.info("Creating order for customer ID: {}", order.getCustomerId());
 
         // Validate customer
@@ -62,28 +83,110 @@ public class OrderService {
         // Validate cloth items
         validateClothItems(order.getClothItems());
 
-        // Handle images
-        if (images != null && !images.isEmpty()) {
-            if (images.size() > 5) {
+        // Allocate the id up front so every image is stored with its owning order
+        String orderId = new ObjectId().toHexString();
+        order.setId(orderId);
+
+        List<String> storedFileIds = new ArrayList<>();
+        List<String> claimedFileIds = new ArrayList<>();
+        try {
+            List<MultipartFile> files = images != null
+                    ? images.stream().filter(file -> !file.isEmpty()).collect(Collectors.toList())
+                    : List.of();
+            List<String> uploadedIds = imageFileIds != null
+                    ? imageFileIds.stream().filter(id -> id != null && !id.isBlank()).distinct()
+                            .collect(Collectors.toList())
+                    : List.of();
+            if (files.size() + uploadedIds.size() > 5) {
                 throw new IllegalArgumentException("Maximum 5 images allowed");
             }
-            List<Order.Image> imageList = images.stream()
-                    .filter(file -> !file.isEmpty())
-                    .map(file -> {
-                        validateFile(file);
-                        try {
-                            String fileId = gridFsService.storeFile(file, order.getId());
-                            return new Order.Image(fileId, file.getContentType());
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to store image", e);
-                        }
-                    }).collect(Collectors.toList());
-            order.setImages(imageList);
-        }
-
-        Order savedOrder = orderRepository.save(order);
-        logger.info("Order created successfully: {}", savedOrder.getId());
-        return savedOrder;
+            // Validate everything before writing anything
+            files.forEach(this::validateFile);
+            uploadedIds.forEach(fileId -> uploadSessionService.checkClaimable(fileId, FileCategory.ORDER_IMAGE));
+
+            List<Order.Image> imageList = new ArrayList<>();
+            if (!files.isEmpty()) {
+                imageList.addAll(storeImages(files, orderId, storedFileIds));
+            }
+            for (String fileId : uploadedIds) {
+                GridFsFileDescriptor file = uploadSessionService.claim(fileId, FileCategory.ORDER_IMAGE, orderId);
+                claimedFileIds.add(fileId);
+                imageList.add(new Order.Image(fileId, gridFsService.getContentType(file)));
+            }
+            if (!imageList.isEmpty()) {
+                order.setImages(imageList);
+            }
+
+            Order savedOrder = orderRepository.insert(order);
+            logger.info("Order created successfully: {}", savedOrder.getId());
+            return savedOrder;
+        } catch (RuntimeException | IOException e) {
+            discardImages(storedFileIds, orderId);
+            releaseImages(claimedFileIds, orderId);
+            throw e;
+        }
+    }
+
+    // Writes the images concurrently on the upload executor and waits for all of them, so the cost is
+    // the slowest write rather than the sum. Ids of files that were written are added to storedFileIds
+    // even if another image fails, so the caller can roll them back.
+    private List<Order.Image> storeImages(List<MultipartFile> files, String orderId, List<String> storedFileIds)
+            throws IOException {
+        List<CompletableFuture<String>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return gridFsService.storeFile(file, FileCategory.ORDER_IMAGE, orderId);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, uploadExecutor))
+                .collect(Collectors.toList());
+
+        Throwable failure = null;
+        List<Order.Image> imageList = new ArrayList<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            try {
+                String fileId = uploads.get(i).join();
+                storedFileIds.add(fileId);
+                imageList.add(new Order.Image(fileId, files.get(i).getContentType()));
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new IOException("Failed to store image", failure);
+        }
+        return imageList;
+    }
+
+    private void discardImages(List<String> fileIds, String orderId) {
+        for (String fileId : fileIds) {
+            try {
+                gridFsService.discardFile(fileId, orderId);
+            } catch (RuntimeException e) {
+                // Left for the orphan collector
+                logger.warn("Failed to roll back image {} of order {}: {}", fileId, orderId, e.getMessage());
+            }
+        }
+    }
+
+    // Claimed uploads are only released, not deleted, so the client can retry with the same file ids
+    private void releaseImages(List<String> fileIds, String orderId) {
+        for (String fileId : fileIds) {
+            try {
+                gridFsService.releaseFile(fileId, orderId);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to release image {} of order {}: {}", fileId, orderId, e.getMessage());
+            }
+        }
     }
 
     public Order getOrderById(String id) {
@@ -0,0 +1,68 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Config.CacheConfig;
+import com.rosebeauticare.rosebeauticare.Model.Staff;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+// Evicts in this instance only; other instances see a change when their entries expire, so the staff
+// cache TTLs (cache.specs.*) are kept short
+@Component
+public class StaffCacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffCacheInvalidator.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @EventListener
+    public void onStaffChanged(StaffChangedEvent event) {
+        Staff previous = event.getPrevious();
+        Staff current = event.getCurrent();
+
+        // Username caches are keyed by the normalized username
+        Set<String> usernames = new LinkedHashSet<>();
+        for (String username : keys(previous, current, Staff::getUsername)) {
+            usernames.add(StaffUsernames.normalize(username));
+        }
+
+        evict(CacheConfig.STAFF_BY_ID, keys(previous, current, Staff::getId));
+        evict(CacheConfig.STAFF_DETAILS, keys(previous, current, Staff::getId));
+        evict(CacheConfig.STAFF_PHOTOS, keys(previous, current, Staff::getId));
+        evict(CacheConfig.STAFF_BY_USERNAME, usernames);
+        evict(CacheConfig.USER_DETAILS, usernames);
+        evict(CacheConfig.STAFF_BY_EMAIL, keys(previous, current, Staff::getEmail));
+        evict(CacheConfig.STAFF_BY_PHONE_NUMBER, keys(previous, current, Staff::getPhonenumber));
+        logger.debug("Evicted cached entries for staff ID: {}", current.getId());
+    }
+
+    private Set<String> keys(Staff previous, Staff current, Function<Staff, String> field) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (previous != null && field.apply(previous) != null) {
+            keys.add(field.apply(previous));
+        }
+        if (current != null && field.apply(current) != null) {
+            keys.add(field.apply(current));
+        }
+        return keys;
+    }
+
+    private void evict(String cacheName, Set<String> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (String key : keys) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Staff;
+
+public class StaffChangedEvent {
+    private final Staff previous;
+    private final Staff current;
+
+    // previous is null when the staff member was just created
+    public StaffChangedEvent(Staff previous, Staff current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Staff getPrevious() {
+        return previous;
+    }
+
+    public Staff getCurrent() {
+        return current;
+    }
+}
@@ -3,37 +3,38 @@ package com.rosebeauticare.rosebeauticare.Service;
 import com.rosebeauticare.rosebeauticare.DTO.StaffListDTO;
 import com.rosebeauticare.rosebeauticare.Model.Staff;
 import com.rosebeauticare.rosebeauticare.Repository.StaffRepository;
-import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.rosebeauticare.rosebeauticare.Config.AsyncConfig;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.gridfs.GridFsResource;
-import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import com.mongodb.client.gridfs.model.GridFSFile;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import static org.springframework.data.mongodb.core.query.Criteria.where;
-
 @Service
 public class StaffService {
 
     private static final Logger logger = LoggerFactory.getLogger(StaffService.class);
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final String[] ALLOWED_CONTENT_TYPES = { "image/jpeg", "image/png" };
-    private static final String FALLBACK_CONTENT_TYPE = "application/octet-stream";
+    private static final String FALLBACK_CONTENT_TYPE = GridFsService.FALLBACK_CONTENT_TYPE;
 
     @Autowired
     private StaffRepository staffRepository;
@@ -45,10 +46,33 @@ public class StaffService {
     private GridFsService gridFsService;
 
     @Autowired
-    private GridFsTemplate gridFsTemplate;
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private StaffUsernames staffUsernames;
+
+    @Autowired
+    private MongoIndexManager indexManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier(AsyncConfig.FILE_LOOKUP_EXECUTOR)
+    private Executor fileLookupExecutor;
+
+    @Value("${async.file-lookup.timeout-ms:2000}")
+    private long fileLookupTimeoutMs;
 
-    @Transactional
     public Staff addStaff(Staff staff, MultipartFile photo, MultipartFile documentphoto) throws IOException {
+        return addStaff(staff, photo, documentphoto, null, null);
+    }
+
+    // photoFileId / documentphotoFileId refer to files completed through an upload session and are an
+    // alternative to sending the file itself
+    @Transactional
+    public Staff addStaff(Staff staff, MultipartFile photo, MultipartFile documentphoto, String photoFileId,
+            String documentphotoFileId) throws IOException {
         // Validate staff fields
         if (staff.getSecuritypin() == null || staff.getSecuritypin().length() < 6) {
             logger.warn("Validation failed: Security pin must be at least 6 characters");
@@ -59,44 +83,69 @@ public class StaffService {
         // Validate files
         validateFile(photo, "photo");
         validateFile(documentphoto, "documentphoto");
+        validateUploadedFile(photo, photoFileId, FileCategory.STAFF_PHOTO, "photo");
+        validateUploadedFile(documentphoto, documentphotoFileId, FileCategory.STAFF_DOCUMENT, "documentphoto");
 
         staff.setSecuritypin(passwordEncoder.encode(staff.getSecuritypin()));
-        Staff savedStaff = staffRepository.save(staff);
+        staff.setUsernameNormalized(StaffUsernames.normalize(staff.getUsername()));
+        checkUniqueFields(staff);
+        Staff savedStaff;
+        try {
+            savedStaff = staffRepository.insert(staff);
+        } catch (DuplicateKeyException e) {
+            throw duplicateField(e);
+        }
         String staffId = savedStaff.getId();
 
         if (photo != null && !photo.isEmpty()) {
-            String fileId = gridFsService.storeFile(photo, staffId);
+            String fileId = gridFsService.storeFile(photo, FileCategory.STAFF_PHOTO, staffId);
             logger.debug("Stored photo for staff ID: {}, file ID: {}, contentType: {}", staffId, fileId, photo.getContentType());
             savedStaff.setPhoto(fileId);
+        } else if (hasText(photoFileId)) {
+            uploadSessionService.claim(photoFileId, FileCategory.STAFF_PHOTO, staffId);
+            savedStaff.setPhoto(photoFileId);
         } else {
             savedStaff.setPhoto(null);
         }
         if (documentphoto != null && !documentphoto.isEmpty()) {
-            String documentFileId = gridFsService.storeFile(documentphoto, staffId);
+            String documentFileId = gridFsService.storeFile(documentphoto, FileCategory.STAFF_DOCUMENT, staffId);
             logger.debug("Stored document photo for staff ID: {}, file ID: {}, contentType: {}", staffId, documentFileId, documentphoto.getContentType());
             savedStaff.setDocumentphoto(documentFileId);
+        } else if (hasText(documentphotoFileId)) {
+            uploadSessionService.claim(documentphotoFileId, FileCategory.STAFF_DOCUMENT, staffId);
+            savedStaff.setDocumentphoto(documentphotoFileId);
         } else {
             savedStaff.setDocumentphoto(null);
         }
 
         Staff updatedStaff = staffRepository.save(savedStaff);
+        eventPublisher.publishEvent(new StaffChangedEvent(null, updatedStaff));
         logger.info("Staff added successfully with ID: {}", staffId);
         return updatedStaff;
     }
 
-    @Transactional
     public Staff updateStaff(String id, Staff updatedStaff, MultipartFile photo, MultipartFile documentphoto)
             throws IOException {
+        return updateStaff(id, updatedStaff, photo, documentphoto, null, null);
+    }
+
+    @Transactional
+    public Staff updateStaff(String id, Staff updatedStaff, MultipartFile photo, MultipartFile documentphoto,
+            String photoFileId, String documentphotoFileId) throws IOException {
         Staff existingStaff = staffRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.warn("Staff not found with ID: {}", id);
                     return new IllegalArgumentException("Staff not found with id: " + id);
                 });
+        Staff previousStaff = new Staff();
+        BeanUtils.copyProperties(existingStaff, previousStaff);
 
         if (updatedStaff.getName() != null)
             existingStaff.setName(updatedStaff.getName());
-        if (updatedStaff.getUsername() != null)
+        if (updatedStaff.getUsername() != null) {
             existingStaff.setUsername(updatedStaff.getUsername());
+            existingStaff.setUsernameNormalized(StaffUsernames.normalize(updatedStaff.getUsername()));
+        }
         if (updatedStaff.getPhonenumber() != null)
             existingStaff.setPhonenumber(updatedStaff.getPhonenumber());
         if (updatedStaff.getAlternatephonenumber() != null)
@@ -132,131 +181,151 @@ public class StaffService {
         // Validate files
         validateFile(photo, "photo");
         validateFile(documentphoto, "documentphoto");
+        validateUploadedFile(photo, photoFileId, FileCategory.STAFF_PHOTO, "photo");
+        validateUploadedFile(documentphoto, documentphotoFileId, FileCategory.STAFF_DOCUMENT, "documentphoto");
 
         if (photo != null && !photo.isEmpty()) {
-            String fileId = gridFsService.storeFile(photo, id);
+            String fileId = gridFsService.storeFile(photo, FileCategory.STAFF_PHOTO, id);
             logger.debug("Stored photo for staff ID: {}, file ID: {}, contentType: {}", id, fileId, photo.getContentType());
             existingStaff.setPhoto(fileId);
+        } else if (hasText(photoFileId)) {
+            uploadSessionService.claim(photoFileId, FileCategory.STAFF_PHOTO, id);
+            existingStaff.setPhoto(photoFileId);
         }
         if (documentphoto != null && !documentphoto.isEmpty()) {
-            String documentFileId = gridFsService.storeFile(documentphoto, id);
+            String documentFileId = gridFsService.storeFile(documentphoto, FileCategory.STAFF_DOCUMENT, id);
             logger.debug("Stored document photo for staff ID: {}, file ID: {}, contentType: {}", id, documentFileId, documentphoto.getContentType());
             existingStaff.setDocumentphoto(documentFileId);
+        } else if (hasText(documentphotoFileId)) {
+            uploadSessionService.claim(documentphotoFileId, FileCategory.STAFF_DOCUMENT, id);
+            existingStaff.setDocumentphoto(documentphotoFileId);
         }
 
-        Staff updated = staffRepository.save(existingStaff);
+        checkUniqueFields(existingStaff);
+        Staff updated;
+        try {
+            updated = staffRepository.save(existingStaff);
+        } catch (DuplicateKeyException e) {
+            throw duplicateField(e);
+        }
+        releaseReplacedFile(previousStaff.getPhoto(), updated.getPhoto(), id);
+        releaseReplacedFile(previousStaff.getDocumentphoto(), updated.getDocumentphoto(), id);
+        eventPublisher.publishEvent(new StaffChangedEvent(previousStaff, updated));
         logger.info("Staff updated successfully with ID: {}", id);
         return updated;
     }
 
-    @Cacheable(value = "staffByEmail", key = "#email")
+    // Email, username and phone number are unique indexes; map a violation to the message clients expect
+    private static RuntimeException duplicateField(DuplicateKeyException e) {
+        DuplicateFieldException duplicate = duplicateField(MongoIndexManager.violatedIndex(e));
+        return duplicate != null ? duplicate : e;
+    }
+
+    private static DuplicateFieldException duplicateField(String index) {
+        if (MongoIndexManager.STAFF_EMAIL_INDEX.equals(index)) {
+            return new DuplicateFieldException("email", "Email already exists");
+        }
+        if (MongoIndexManager.STAFF_USERNAME_INDEX.equals(index)) {
+            return new DuplicateFieldException("username", "Username already exists");
+        }
+        if (MongoIndexManager.STAFF_PHONE_INDEX.equals(index)) {
+            return new DuplicateFieldException("phonenumber", "Phone number already exists");
+        }
+        return null;
+    }
+
+    // Used only while the unique indexes are not known to exist (still being created at startup, or
+    // blocked by duplicates already in the data); otherwise the write itself rejects duplicates
+    private void checkUniqueFields(Staff staff) {
+        if (indexManager.uniqueIndexesReady("staff")) {
+            return;
+        }
+        if (isTakenByOther(staffRepository.findByEmail(staff.getEmail()), staff)) {
+            throw duplicateField(MongoIndexManager.STAFF_EMAIL_INDEX);
+        }
+        // Case-insensitive, as the usernameNormalized index would be
+        if (isTakenByOther(staffUsernames.find(staff.getUsername()), staff)) {
+            throw duplicateField(MongoIndexManager.STAFF_USERNAME_INDEX);
+        }
+        if (isTakenByOther(staffRepository.findByPhoneNumber(staff.getPhonenumber()), staff)) {
+            throw duplicateField(MongoIndexManager.STAFF_PHONE_INDEX);
+        }
+    }
+
+    private static boolean isTakenByOther(Optional<Staff> other, Staff staff) {
+        return other.isPresent() && !Objects.equals(other.get().getId(), staff.getId());
+    }
+
+    private void releaseReplacedFile(String previousFileId, String currentFileId, String staffId) {
+        if (previousFileId != null && !previousFileId.isEmpty() && !previousFileId.equals(currentFileId)) {
+            gridFsService.releaseFile(previousFileId, staffId);
+        }
+    }
+
+    // Not-found results are not cached: the uniqueness checks use these lookups, and a staff member
+    // added on another instance is not evicted here
+    @Cacheable(value = "staffByEmail", key = "#email", unless = "#result == null")
     public Staff getStaffByEmail(String email) {
         logger.debug("Fetching staff by email: {}", email);
         return staffRepository.findByEmail(email).orElse(null);
     }
 
-    @Cacheable(value = "staffByUsername", key = "#username")
+    // Usernames match regardless of case, so differently cased spellings share one cache entry
+    @Cacheable(value = "staffByUsername", key = "T(com.rosebeauticare.rosebeauticare.Service.StaffUsernames).normalize(#username)",
+            unless = "#result == null")
     public Staff getStaffByUsername(String username) {
         logger.debug("Fetching staff by username: {}", username);
-        return staffRepository.findByUsername(username).orElse(null);
+        return staffUsernames.find(username).orElse(null);
     }
 
-    @Cacheable(value = "staffById", key = "#id")
+    @Cacheable(value = "staffById", key = "#id", unless = "#result == null")
     public Staff getStaffById(String id) {
         logger.debug("Fetching staff by ID: {}", id);
         return staffRepository.findById(id).orElse(null);
     }
 
-    @Cacheable(value = "staffByPhoneNumber", key = "#phonenumber")
+    @Cacheable(value = "staffByPhoneNumber", key = "#phonenumber", unless = "#result == null")
     public Staff getStaffByPhoneNumber(String phonenumber) {
         logger.debug("Fetching staff by phone number: {}", phonenumber);
         return staffRepository.findByPhoneNumber(phonenumber).orElse(null);
     }
 
-    public byte[] getStaffPhoto(String photoId) throws IOException {
+    public String getContentType(String photoId) {
+        return getContentType(photoId, null);
+    }
+
+    // staffId, when known, is recorded against a missing file so the admin report can name the broken record
+    public String getContentType(String photoId, String staffId) {
         if (photoId == null || photoId.isEmpty()) {
             logger.warn("Photo ID is null or empty");
             return null;
         }
         try {
-            ObjectId objectId = new ObjectId(photoId);
-            Query query = new Query(where("_id").is(objectId));
-            GridFSFile file = gridFsTemplate.findOne(query);
-            GridFsResource resource = gridFsTemplate.getResource(file);
-            if (resource == null || !resource.exists()) {
-                logger.warn("No GridFS resource found for photo ID: {}", photoId);
+            GridFsFileDescriptor file = gridFsService.describe(photoId);
+            if (file == null) {
+                // Callers log the miss with the staff context; keep this one quiet
+                logger.debug("No GridFS file found for photo ID: {}", photoId);
+                gridFsService.recordMissingOwner(photoId, staffId);
                 return null;
             }
-            try (InputStream inputStream = resource.getInputStream();
-                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                byte[] buffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-                logger.info("Successfully retrieved photo for ID: {}", photoId);
-                return outputStream.toByteArray();
-            }
-        } catch (IllegalArgumentException e) {
-            logger.error("Invalid ObjectId format for photo ID: {}", photoId, e);
-            return null;
-        } catch (IOException e) {
-            logger.error("IO error retrieving photo for ID: {}", photoId, e);
-            throw e;
-        }
-    }
-
-    public Map<String, Object> getStaffPhotoWithContentType(String photoId) throws IOException {
-        Map<String, Object> result = new HashMap<>();
-        result.put("content", getStaffPhoto(photoId));
-        result.put("contentType", getContentType(photoId));
-        return result;
-    }
-
-    public Map<String, Map<String, Object>> getStaffPhotos(String photoId, String documentPhotoId) throws IOException {
-        Map<String, Map<String, Object>> photos = new HashMap<>();
-        if (photoId != null && !photoId.isEmpty()) {
-            photos.put("photo", getStaffPhotoWithContentType(photoId));
-        }
-        if (documentPhotoId != null && !documentPhotoId.isEmpty()) {
-            photos.put("documentphoto", getStaffPhotoWithContentType(documentPhotoId));
+            return gridFsService.getContentType(file);
+        } catch (Exception e) {
+            logger.error("Error retrieving content type for photo ID: {}", photoId, e);
+            return FALLBACK_CONTENT_TYPE;
         }
-        return photos;
     }
 
-    public String getContentType(String photoId) {
+    // Runs getContentType on the file lookup executor so independent lookups overlap. The future fails
+    // with a TimeoutException after async.file-lookup.timeout-ms, or with the rejection if the pool is full.
+    public CompletableFuture<String> getContentTypeAsync(String photoId, String staffId) {
         if (photoId == null || photoId.isEmpty()) {
-            logger.warn("Photo ID is null or empty");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         try {
-            ObjectId objectId = new ObjectId(photoId);
-            Query query = new Query(where("_id").is(objectId));
-            GridFSFile file = gridFsTemplate.findOne(query);
-            if (file.getMetadata() == null) {
-                logger.warn("No metadata found for photo ID: {}", photoId);
-                return FALLBACK_CONTENT_TYPE;
-            }
-            // Check for standard metadata.contentType
-            String contentType = file.getMetadata().getString("contentType");
-            if (contentType == null) {
-                // Check for nested metadata.metadata.contentType (legacy files)
-                Object nestedMetadata = file.getMetadata().get("metadata");
-                if (nestedMetadata instanceof org.bson.Document) {
-                    contentType = ((org.bson.Document) nestedMetadata).getString("contentType");
-                }
-                if (contentType == null) {
-                    logger.warn("No content type found in metadata for photo ID: {}", photoId);
-                    return FALLBACK_CONTENT_TYPE;
-                }
-            }
-            return contentType;
-        } catch (IllegalArgumentException e) {
-            logger.error("Invalid ObjectId format for photo ID: {}", photoId, e);
-            return null;
-        } catch (Exception e) {
-            logger.error("Error retrieving content type for photo ID: {}", photoId, e);
-            return FALLBACK_CONTENT_TYPE;
+            return CompletableFuture.supplyAsync(() -> getContentType(photoId, staffId), fileLookupExecutor)
+                    .orTimeout(fileLookupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
@@ -275,6 +344,21 @@ public class StaffService {
         }
     }
 
+    private void validateUploadedFile(MultipartFile file, String fileId, FileCategory category, String fieldName) {
+        if (!hasText(fileId)) {
+            return;
+        }
+        if (file != null && !file.isEmpty()) {
+            logger.warn("Validation failed: both {} and {}FileId were given", fieldName, fieldName);
+            throw new IllegalArgumentException("Provide either " + fieldName + " or " + fieldName + "FileId, not both");
+        }
+        uploadSessionService.checkClaimable(fileId, category);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
     private void validateRole(String role) {
         if (role == null
                 || !Arrays.asList("ADMIN", "TAILOR", "CUTTING_MASTER", "ASSISTANT", "MANAGER").contains(role)) {
@@ -0,0 +1,103 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.rosebeauticare.rosebeauticare.Model.Staff;
+import com.rosebeauticare.rosebeauticare.Repository.StaffRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Username lookups go through the stored, lower-cased usernameNormalized field, which is uniquely
+// indexed, so a login is one exact-match index lookup. Staff saved before the field existed are
+// backfilled in the background at startup; until that has finished, a lookup that misses falls back to
+// an anchored case-insensitive match on username. Only ever lower-case with normalize(), never in a
+// query, or stored values and lookup keys can disagree for non-ASCII names.
+@Component
+public class StaffUsernames {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffUsernames.class);
+    private static final String STAFF_COLLECTION = "staff";
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile boolean backfilled;
+
+    public static String normalize(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
+    }
+
+    public Optional<Staff> find(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        Optional<Staff> staff = staffRepository.findByUsernameNormalized(normalize(username));
+        if (staff.isPresent() || backfilled) {
+            return staff;
+        }
+        return staffRepository.findByUsernameMatching("^" + Pattern.quote(username) + "$");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Thread thread = new Thread(this::backfill, "staff-username-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Sets usernameNormalized from username wherever it is missing or differs from normalize(username),
+    // one document at a time and in Java, so stored values follow the same rule as lookups (Mongo's
+    // $toLower only handles ASCII). If two usernames differ only in case the unique index rejects the
+    // second; those are logged and left for an administrator to rename, and the fallback lookup stays on
+    // so both can still sign in.
+    public void backfill() {
+        MongoCollection<Document> staff = mongoTemplate.getCollection(STAFF_COLLECTION);
+        try {
+            List<Document> stale = new ArrayList<>();
+            staff.find(Filters.type("username", "string"))
+                    .projection(Projections.include("_id", "username", "usernameNormalized"))
+                    .forEach(document -> {
+                        if (!normalize(document.getString("username")).equals(document.get("usernameNormalized"))) {
+                            stale.add(document);
+                        }
+                    });
+            int updated = 0;
+            int conflicts = 0;
+            for (Document document : stale) {
+                try {
+                    staff.updateOne(Filters.eq("_id", document.get("_id")),
+                            Updates.set("usernameNormalized", normalize(document.getString("username"))));
+                    updated++;
+                } catch (MongoWriteException conflict) {
+                    conflicts++;
+                    logger.error("Staff {} has a username that differs only in case from another: {}",
+                            document.get("_id"), conflict.getError().getMessage());
+                }
+            }
+            if (updated > 0 || conflicts > 0) {
+                logger.info("Backfilled usernameNormalized on {} staff documents, {} conflicts", updated, conflicts);
+            }
+            backfilled = conflicts == 0;
+        } catch (RuntimeException e) {
+            logger.error("Failed to backfill usernameNormalized: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import com.rosebeauticare.rosebeauticare.DTO.UploadSessionDTO;
+import com.rosebeauticare.rosebeauticare.DTO.UploadSessionRequestDTO;
+import com.rosebeauticare.rosebeauticare.Model.UploadSession;
+import com.rosebeauticare.rosebeauticare.Repository.UploadSessionRepository;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+// Resumable uploads for staff and order images. A client opens a session, PUTs numbered chunks in any
+// order (re-sending a chunk overwrites it), asks which chunks are still missing after a dropped
+// connection, and completes the session into a GridFS file id. Chunks are staged in their own
+// collection rather than written as GridFS chunks directly, because completing runs the same
+// deduplication and re-encoding as a direct upload and so may store different bytes, or none at all.
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+    public static final String SESSIONS_COLLECTION = "uploadSessions";
+    public static final String CHUNKS_COLLECTION = "uploadChunks";
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private GridFsService gridFsService;
+
+    @Autowired
+    private MongoIndexManager indexManager;
+
+    @Value("${uploads.chunk-size:262144}")
+    private int chunkSize;
+
+    @Value("${uploads.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${uploads.completing-timeout-minutes:10}")
+    private long completingTimeoutMinutes;
+
+    public UploadSessionDTO create(UploadSessionRequestDTO request) {
+        FileCategory category = parseCategory(request.getCategory());
+        if (request.getSize() <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        GridFsService.validateUpload(request.getSize(), request.getContentType());
+        if (request.getSha256() != null && !request.getSha256().matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("sha256 must be 64 hex characters");
+        }
+        ensureIndexes();
+
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession();
+        session.setCategory(category.name());
+        session.setFilename(request.getFilename());
+        session.setContentType(request.getContentType());
+        session.setSize(request.getSize());
+        session.setSha256(request.getSha256() != null ? request.getSha256().toLowerCase() : null);
+        session.setChunkSize(chunkSize);
+        session.setTotalChunks((int) ((request.getSize() + chunkSize - 1) / chunkSize));
+        session.setReceivedChunks(new HashSet<>());
+        session.setStatus(UploadSession.OPEN);
+        session.setCreatedBy(currentUser());
+        session.setCreatedAt(Date.from(now));
+        session.setExpiresAt(Date.from(now.plus(Duration.ofHours(sessionTtlHours))));
+        UploadSession saved = uploadSessionRepository.save(session);
+        logger.info("Opened upload session {} for {} ({} bytes in {} chunks) by {}", saved.getId(), category,
+                saved.getSize(), saved.getTotalChunks(), saved.getCreatedBy());
+        return toDTO(saved);
+    }
+
+    public UploadSessionDTO putChunk(String id, int index, byte[] data) {
+        UploadSession session = find(id);
+        if (!UploadSession.OPEN.equals(session.getStatus())) {
+            throw new IllegalStateException("Upload session is " + session.getStatus().toLowerCase());
+        }
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1));
+        }
+        long expected = expectedChunkLength(session, index);
+        if (data == null || data.length != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " must be " + expected + " bytes");
+        }
+
+        Document chunk = new Document("_id", chunkId(id, index))
+                .append("sessionId", id)
+                .append("n", index)
+                .append("data", new Binary(data))
+                .append("expiresAt", session.getExpiresAt());
+        chunks().replaceOne(Filters.eq("_id", chunkId(id, index)), chunk, new ReplaceOptions().upsert(true));
+        // Only recorded while the session is still open, so a chunk racing with complete is rejected
+        long matched = mongoTemplate.updateFirst(openSession(id), new Update().addToSet("receivedChunks", index),
+                UploadSession.class).getMatchedCount();
+        if (matched == 0) {
+            throw new IllegalStateException("Upload session is no longer open");
+        }
+        session.getReceivedChunks().add(index);
+        logger.debug("Stored chunk {} of upload session {} ({} bytes)", index, id, data.length);
+        return toDTO(session);
+    }
+
+    public UploadSessionDTO getStatus(String id) {
+        return toDTO(find(id));
+    }
+
+    // Idempotent: completing an already completed session returns its file id again. A completion that
+    // was left unfinished (the instance stopped part way) is taken over by a retry after the timeout;
+    // storing is deduplicated by hash, so a file the first attempt already stored is reused.
+    public UploadSessionDTO complete(String id) throws IOException {
+        UploadSession session = find(id);
+        if (UploadSession.COMPLETE.equals(session.getStatus())) {
+            return toDTO(session);
+        }
+        List<Integer> missing = missingChunks(session);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Upload session is missing chunks " + missing);
+        }
+        Date startedAt = new Date();
+        Date staleBefore = Date.from(startedAt.toInstant().minus(Duration.ofMinutes(completingTimeoutMinutes)));
+        UploadSession completing = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).orOperator(
+                        Criteria.where("status").is(UploadSession.OPEN),
+                        Criteria.where("status").is(UploadSession.COMPLETING).and("completingAt").lt(staleBefore))),
+                new Update().set("status", UploadSession.COMPLETING).set("completingAt", startedAt),
+                FindAndModifyOptions.options().returnNew(true), UploadSession.class);
+        if (completing == null) {
+            UploadSession current = find(id);
+            if (UploadSession.COMPLETE.equals(current.getStatus())) {
+                return toDTO(current);
+            }
+            throw new IllegalStateException("Upload session is already being completed");
+        }
+        if (UploadSession.COMPLETING.equals(session.getStatus())) {
+            logger.warn("Taking over upload session {}, left completing since {}", id, session.getCompletingAt());
+        }
+
+        String fileId;
+        try {
+            byte[] data = assemble(completing);
+            if (completing.getSha256() != null && !completing.getSha256().equals(GridFsService.sha256(data))) {
+                throw new IllegalArgumentException("Uploaded data does not match the declared sha256");
+            }
+            fileId = gridFsService.storeUpload(data, completing.getFilename(), completing.getContentType(),
+                    FileCategory.valueOf(completing.getCategory()));
+        } catch (RuntimeException | IOException e) {
+            // Reopen so the client can re-send chunks and try again, unless a retry has taken over
+            mongoTemplate.updateFirst(heldBy(id, startedAt),
+                    new Update().set("status", UploadSession.OPEN).unset("completingAt"), UploadSession.class);
+            throw e;
+        }
+
+        // Only if this completion still holds the session; a retry that took over finishes it instead
+        long matched = mongoTemplate.updateFirst(heldBy(id, startedAt),
+                new Update().set("status", UploadSession.COMPLETE).set("fileId", fileId).unset("completingAt"),
+                UploadSession.class).getMatchedCount();
+        if (matched == 0) {
+            UploadSession current = find(id);
+            if (UploadSession.COMPLETE.equals(current.getStatus())) {
+                return toDTO(current);
+            }
+            throw new IllegalStateException("Upload session is already being completed");
+        }
+        completing.setStatus(UploadSession.COMPLETE);
+        completing.setFileId(fileId);
+        completing.setCompletingAt(null);
+        chunks().deleteMany(Filters.eq("sessionId", id));
+        logger.info("Completed upload session {} into file {}", id, fileId);
+        return toDTO(completing);
+    }
+
+    public void abort(String id) {
+        UploadSession session = find(id);
+        if (UploadSession.COMPLETING.equals(session.getStatus()) && !isStale(session)) {
+            throw new IllegalStateException("Upload session is being completed");
+        }
+        chunks().deleteMany(Filters.eq("sessionId", id));
+        uploadSessionRepository.deleteById(id);
+        logger.info("Aborted upload session {}", id);
+    }
+
+    // Lets a staff or order record take ownership of a file completed through an upload session. Only
+    // files uploaded by the current user for the same category can be claimed.
+    public GridFsFileDescriptor claim(String fileId, FileCategory category, String ownerId) {
+        checkClaimable(fileId, category);
+        return gridFsService.claimFile(fileId, ownerId);
+    }
+
+    // Validates a claim up front, before the record that will own the file is saved
+    public void checkClaimable(String fileId, FileCategory category) {
+        if (fileId == null || !ObjectId.isValid(fileId)) {
+            throw new IllegalArgumentException("Invalid file ID format: " + fileId);
+        }
+        UploadSession session = uploadSessionRepository
+                .findFirstByFileIdAndCreatedByAndStatus(fileId, currentUser(), UploadSession.COMPLETE)
+                .orElseThrow(() -> new IllegalArgumentException("No completed upload found for file id: " + fileId));
+        if (!category.name().equals(session.getCategory())) {
+            throw new IllegalArgumentException("File " + fileId + " was not uploaded as " + category.name().toLowerCase());
+        }
+    }
+
+    // Completed sessions that still hand out one of fileIds: until a session expires its client may claim
+    // the file, so the orphan collector and discardFile treat such a file as referenced
+    static Bson completedSessionsOf(Collection<String> fileIds) {
+        return Filters.and(Filters.in("fileId", fileIds), Filters.eq("status", UploadSession.COMPLETE),
+                Filters.gt("expiresAt", new Date()));
+    }
+
+    private byte[] assemble(UploadSession session) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) session.getSize());
+        int expected = 0;
+        for (Document chunk : chunks().find(Filters.eq("sessionId", session.getId())).sort(Sorts.ascending("n"))) {
+            if (chunk.getInteger("n") != expected) {
+                throw new IllegalStateException("Upload session is missing chunk " + expected);
+            }
+            byte[] data = chunk.get("data", Binary.class).getData();
+            out.write(data, 0, data.length);
+            expected++;
+        }
+        if (expected != session.getTotalChunks() || out.size() != session.getSize()) {
+            throw new IllegalStateException("Upload session data is incomplete");
+        }
+        return out.toByteArray();
+    }
+
+    private UploadSession find(String id) {
+        String user = currentUser();
+        return uploadSessionRepository.findById(id)
+                .filter(session -> session.getCreatedBy() != null && session.getCreatedBy().equals(user))
+                .orElseThrow(() -> new IllegalArgumentException("Upload session not found with id: " + id));
+    }
+
+    private boolean isStale(UploadSession session) {
+        return session.getCompletingAt() == null || session.getCompletingAt().toInstant()
+                .isBefore(Instant.now().minus(Duration.ofMinutes(completingTimeoutMinutes)));
+    }
+
+    private static Query heldBy(String id, Date startedAt) {
+        return Query.query(Criteria.where("_id").is(id).and("status").is(UploadSession.COMPLETING)
+                .and("completingAt").is(startedAt));
+    }
+
+    private static Query openSession(String id) {
+        return Query.query(Criteria.where("_id").is(id).and("status").is(UploadSession.OPEN));
+    }
+
+    private static long expectedChunkLength(UploadSession session, int index) {
+        long offset = (long) index * session.getChunkSize();
+        return Math.min(session.getChunkSize(), session.getSize() - offset);
+    }
+
+    private static List<Integer> missingChunks(UploadSession session) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            if (session.getReceivedChunks() == null || !session.getReceivedChunks().contains(i)) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private static FileCategory parseCategory(String category) {
+        try {
+            return FileCategory.valueOf(category.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid category: " + category);
+        }
+    }
+
+    private static String chunkId(String sessionId, int index) {
+        return sessionId + ":" + index;
+    }
+
+    private MongoCollection<Document> chunks() {
+        return mongoTemplate.getCollection(CHUNKS_COLLECTION);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        return new UploadSessionDTO(session.getId(), session.getStatus(), session.getChunkSize(),
+                session.getTotalChunks(), missingChunks(session), session.getFileId(), session.getExpiresAt());
+    }
+
+    // Sessions and staged chunks expire through TTL indexes, so make sure they exist before the first write
+    private void ensureIndexes() {
+        indexManager.ensure("uploadSessions");
+        indexManager.ensure(CHUNKS_COLLECTION);
+    }
+}
@@ -1,7 +1,6 @@
 package com.rosebeauticare.rosebeauticare.Service;
 
 import com.rosebeauticare.rosebeauticare.Model.Staff;
-import com.rosebeauticare.rosebeauticare.Repository.StaffRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.User;
@@ -14,13 +13,12 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
-    private StaffRepository staffRepository;
-
-    @Cacheable(value = "userDetails", key = "#username")
+    private StaffUsernames staffUsernames;
 
+    @Cacheable(value = "userDetails", key = "T(com.rosebeauticare.rosebeauticare.Service.StaffUsernames).normalize(#username)")
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Staff staff = staffRepository.findByUsername(username.toLowerCase())
+        Staff staff = staffUsernames.find(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
         return User.builder()
                 .username(staff.getUsername())
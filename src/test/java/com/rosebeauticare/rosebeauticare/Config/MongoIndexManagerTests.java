@@ -0,0 +1,90 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoIndexManagerTests {
+
+	@Test
+	void readsTheViolatedIndexFromDuplicateKeyErrors() {
+		DuplicateKeyException duplicate = new DuplicateKeyException("Write operation error on server: E11000 duplicate key "
+				+ "error collection: RoseBeautiCare_db.customers index: phonenumber_unique dup key: { phonenumber: \"+919876543210\" }");
+
+		assertEquals(MongoIndexManager.CUSTOMER_PHONE_INDEX, MongoIndexManager.violatedIndex(duplicate));
+		assertNull(MongoIndexManager.violatedIndex(new DuplicateKeyException("E11000 duplicate key error")));
+	}
+
+	@Test
+	void doesNotTreatACollectionAsEnsuredWhileAUniqueIndexIsMissing() {
+		List<IndexInfo> existing = new ArrayList<>();
+		existing.add(new IndexInfo(List.of(), MongoIndexManager.CUSTOMER_PHONE_INDEX, true, false, null));
+		// Same name but not unique, as left behind when replacing it with the unique one failed
+		existing.add(new IndexInfo(List.of(), MongoIndexManager.CUSTOMER_NAME_INDEX, false, false, null));
+
+		MongoIndexManager manager = managerWithIndexes(existing);
+
+		assertFalse(manager.uniqueIndexesReady("customers"));
+		assertEquals(List.of(MongoIndexManager.CUSTOMER_ALTERNATE_PHONE_INDEX, MongoIndexManager.CUSTOMER_NAME_INDEX),
+				manager.getMissingUniqueIndexes().get("customers"));
+	}
+
+	@Test
+	void retriesAMissingUniqueIndexOnlyWhenAskedTo() {
+		List<IndexInfo> existing = new ArrayList<>();
+		existing.add(new IndexInfo(List.of(), MongoIndexManager.CUSTOMER_PHONE_INDEX, true, false, null));
+		MongoIndexManager manager = managerWithIndexes(existing);
+		MongoTemplate mongoTemplate = (MongoTemplate) ReflectionTestUtils.getField(manager, "mongoTemplate");
+
+		assertFalse(manager.uniqueIndexesReady("customers"));
+		assertFalse(manager.uniqueIndexesReady("customers"));
+		manager.ensure("customers");
+		verify(mongoTemplate, times(1)).indexOps("customers");
+
+		existing.add(new IndexInfo(List.of(), MongoIndexManager.CUSTOMER_NAME_INDEX, true, false, null));
+		existing.add(new IndexInfo(List.of(), MongoIndexManager.CUSTOMER_ALTERNATE_PHONE_INDEX, true, false, null));
+
+		assertTrue(manager.retryMissingUniqueIndexes().isEmpty());
+		assertTrue(manager.uniqueIndexesReady("customers"));
+		verify(mongoTemplate, times(2)).indexOps("customers");
+	}
+
+	@Test
+	void isReadyOnceEveryUniqueIndexExists() {
+		List<IndexInfo> existing = new ArrayList<>();
+		for (String name : List.of(MongoIndexManager.CUSTOMER_PHONE_INDEX, MongoIndexManager.CUSTOMER_NAME_INDEX,
+				MongoIndexManager.CUSTOMER_ALTERNATE_PHONE_INDEX)) {
+			existing.add(new IndexInfo(List.of(), name, true, false, null));
+		}
+
+		MongoIndexManager manager = managerWithIndexes(existing);
+
+		assertTrue(manager.uniqueIndexesReady("customers"));
+		assertTrue(manager.getMissingUniqueIndexes().isEmpty());
+	}
+
+	private static MongoIndexManager managerWithIndexes(List<IndexInfo> existing) {
+		IndexOperations indexOps = mock(IndexOperations.class);
+		when(indexOps.getIndexInfo()).thenReturn(existing);
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.indexOps("customers")).thenReturn(indexOps);
+		MongoIndexManager manager = new MongoIndexManager();
+		ReflectionTestUtils.setField(manager, "mongoTemplate", mongoTemplate);
+		return manager;
+	}
+}
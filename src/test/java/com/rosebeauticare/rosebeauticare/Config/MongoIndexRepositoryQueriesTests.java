@@ -0,0 +1,86 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every query method of a repository needs a declared query shape, so findCollectionScans() explains it.
+// Needs no database.
+class MongoIndexRepositoryQueriesTests {
+
+	private static final String REPOSITORY_PACKAGE = "com.rosebeauticare.rosebeauticare.Repository";
+
+	@Test
+	void declaresAQueryShapeForEveryRepositoryQueryMethod() throws ClassNotFoundException {
+		List<Class<?>> repositories = repositories();
+		assertFalse(repositories.isEmpty(), "No repositories found in " + REPOSITORY_PACKAGE);
+
+		List<String> undeclared = new ArrayList<>();
+		for (Class<?> repository : repositories) {
+			String collection = collectionOf(repository);
+			for (Method method : repository.getDeclaredMethods()) {
+				if (method.isDefault() || isInherited(method)) {
+					continue;
+				}
+				boolean declared = MongoIndexManager.getQueries().stream()
+						.anyMatch(shape -> shape.getCollection().equals(collection) && shape.getName().equals(method.getName()));
+				if (!declared) {
+					undeclared.add(collection + " " + repository.getSimpleName() + "." + method.getName());
+				}
+			}
+		}
+		assertTrue(undeclared.isEmpty(), "Query methods without a declared query shape: " + undeclared);
+	}
+
+	private static List<Class<?>> repositories() throws ClassNotFoundException {
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+			@Override
+			protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+				return definition.getMetadata().isInterface();
+			}
+		};
+		scanner.addIncludeFilter(new AssignableTypeFilter(MongoRepository.class));
+		List<Class<?>> repositories = new ArrayList<>();
+		for (BeanDefinition definition : scanner.findCandidateComponents(REPOSITORY_PACKAGE)) {
+			repositories.add(Class.forName(definition.getBeanClassName()));
+		}
+		return repositories;
+	}
+
+	// Overrides of the CRUD methods, such as findById, are not query methods. Their parameters are the
+	// erased ID type there, so only the name and arity are compared.
+	private static boolean isInherited(Method method) {
+		for (Method inherited : MongoRepository.class.getMethods()) {
+			if (inherited.getName().equals(method.getName())
+					&& inherited.getParameterCount() == method.getParameterCount()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String collectionOf(Class<?> repository) {
+		for (Type type : repository.getGenericInterfaces()) {
+			if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == MongoRepository.class) {
+				Class<?> entity = (Class<?>) parameterized.getActualTypeArguments()[0];
+				Document document = entity.getAnnotation(Document.class);
+				return document != null && !document.collection().isEmpty() ? document.collection()
+						: Character.toLowerCase(entity.getSimpleName().charAt(0)) + entity.getSimpleName().substring(1);
+			}
+		}
+		throw new IllegalStateException(repository.getName() + " does not extend MongoRepository");
+	}
+}
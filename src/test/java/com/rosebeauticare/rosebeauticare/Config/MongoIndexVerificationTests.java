@@ -0,0 +1,28 @@
+package com.rosebeauticare.rosebeauticare.Config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Needs a reachable MongoDB (spring.data.mongodb.uri), so it only runs with MONGO_INDEX_CHECK=true
+@SpringBootTest(properties = "mongo.indexes.ensure-on-startup=false")
+@EnabledIfEnvironmentVariable(named = "MONGO_INDEX_CHECK", matches = "true")
+class MongoIndexVerificationTests {
+
+	@Autowired
+	private MongoIndexManager indexManager;
+
+	@Test
+	void noDeclaredQueryScansACollection() {
+		indexManager.ensureAll();
+
+		List<MongoIndexManager.QueryShape> scans = indexManager.findCollectionScans();
+
+		assertTrue(scans.isEmpty(), "Queries without a usable index: " + scans);
+	}
+}
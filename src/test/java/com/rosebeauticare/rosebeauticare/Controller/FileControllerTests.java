@@ -0,0 +1,99 @@
+package com.rosebeauticare.rosebeauticare.Controller;
+
+import com.rosebeauticare.rosebeauticare.Service.GridFsFileDescriptor;
+import com.rosebeauticare.rosebeauticare.Service.GridFsService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FileControllerTests {
+
+	private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+	// Whole seconds, as HTTP dates carry no more
+	private static final Date UPLOADED = new Date(1_700_000_000_000L);
+
+	private final ObjectId fileId = new ObjectId();
+	private final String etag = "\"" + fileId.toHexString() + "\"";
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		GridFsFileDescriptor file = new GridFsFileDescriptor(fileId, "orderImages", "photo.jpg", "image/jpeg",
+				CONTENT.length, 4, UPLOADED);
+		GridFsService gridFsService = mock(GridFsService.class);
+		when(gridFsService.describe(fileId.toHexString())).thenReturn(file);
+		when(gridFsService.getContentType(file)).thenReturn("image/jpeg");
+		when(gridFsService.openStream(any(GridFsFileDescriptor.class))).thenAnswer(
+				invocation -> new ByteArrayInputStream(CONTENT));
+		when(gridFsService.openStream(any(GridFsFileDescriptor.class), anyLong(), anyLong())).thenAnswer(invocation -> {
+			int offset = (int) (long) invocation.getArgument(1);
+			int count = (int) (long) invocation.getArgument(2);
+			return new ByteArrayInputStream(CONTENT, offset, count);
+		});
+		FileController controller = new FileController();
+		ReflectionTestUtils.setField(controller, "gridFsService", gridFsService);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@Test
+	void servesARange() throws Exception {
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+				.andExpect(content().string("2345"));
+	}
+
+	@Test
+	void servesARangeWhenIfRangeMatches() throws Exception {
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_RANGE, etag))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().string("2345"));
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_RANGE, "Tue, 14 Nov 2023 22:13:20 GMT"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().string("2345"));
+	}
+
+	@Test
+	void servesTheWholeFileWhenIfRangeDoesNotMatch() throws Exception {
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_RANGE, "\"" + new ObjectId().toHexString() + "\""))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+				.andExpect(content().string("0123456789"));
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_RANGE, "Wed, 15 Nov 2023 22:13:20 GMT"))
+				.andExpect(status().isOk())
+				.andExpect(content().string("0123456789"));
+	}
+
+	@Test
+	void answersARangeOfACurrentCopyWithNotModified() throws Exception {
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/api/files/" + fileId).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_MODIFIED_SINCE, "Tue, 14 Nov 2023 22:13:20 GMT"))
+				.andExpect(status().isNotModified());
+	}
+}
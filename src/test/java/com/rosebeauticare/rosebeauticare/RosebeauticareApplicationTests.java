@@ -1,13 +1,34 @@
 package com.rosebeauticare.rosebeauticare;
 
+import com.rosebeauticare.rosebeauticare.Config.AsyncConfig;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 class RosebeauticareApplicationTests {
 
+	@Autowired
+	private RequestMappingHandlerAdapter handlerAdapter;
+
+	@Autowired
+	@Qualifier(AsyncConfig.MVC_ASYNC_EXECUTOR)
+	private ThreadPoolTaskExecutor mvcAsyncExecutor;
+
 	@Test
 	void contextLoads() {
 	}
 
+	// Streamed exports run on the bounded pool rather than a thread per request
+	@Test
+	void runsAsyncRequestsOnTheBoundedExecutor() {
+		assertSame(mvcAsyncExecutor, ReflectionTestUtils.getField(handlerAdapter, "taskExecutor"));
+	}
+
 }
@@ -0,0 +1,45 @@
+package com.rosebeauticare.rosebeauticare.Security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTests {
+
+	private JwtUtil jwtUtil;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "test-secret-that-is-long-enough-for-hmac-sha-256");
+		ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 60_000L);
+		jwtUtil.init();
+	}
+
+	@Test
+	void verifyTokenReturnsPrincipal() {
+		String token = jwtUtil.generateToken("alice", "ROLE_ADMIN");
+
+		JwtPrincipal principal = jwtUtil.verifyToken(token);
+
+		assertNotNull(principal);
+		assertEquals("alice", principal.getUsername());
+		assertEquals("ADMIN", principal.getRole());
+		assertTrue(principal.getExpiration().getTime() > System.currentTimeMillis());
+	}
+
+	@Test
+	void verifyTokenRejectsTamperedToken() {
+		String token = jwtUtil.generateToken("alice", "ADMIN");
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertNull(jwtUtil.verifyToken(tampered));
+		assertNull(jwtUtil.verifyToken("not-a-jwt"));
+	}
+
+}
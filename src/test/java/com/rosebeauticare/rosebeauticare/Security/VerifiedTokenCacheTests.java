@@ -0,0 +1,67 @@
+package com.rosebeauticare.rosebeauticare.Security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerifiedTokenCacheTests {
+
+	private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final VerifiedTokenCache cache = new VerifiedTokenCache(100, nanos::get);
+
+	@Test
+	void dropsEachTokenAtItsOwnExpiry() {
+		cache.put("short", principal(TimeUnit.MINUTES.toMillis(1)), AUTHORITIES);
+		cache.put("long", principal(TimeUnit.HOURS.toMillis(1)), AUTHORITIES);
+
+		nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+		assertNull(cache.get("short"));
+		VerifiedTokenCache.VerifiedToken cached = cache.get("long");
+		assertNotNull(cached);
+		assertEquals("admin", cached.getUsername());
+		assertEquals(1L, cache.getStats().get("evictions"));
+	}
+
+	@Test
+	void doesNotCacheATokenWithoutExp() {
+		VerifiedTokenCache.VerifiedToken verified = cache.put("token",
+				new JwtPrincipal("admin", "ADMIN", null), AUTHORITIES);
+
+		assertEquals("admin", verified.getUsername());
+		assertEquals(Long.MAX_VALUE, verified.getExpiresAt());
+		assertNull(cache.get("token"));
+		assertEquals(0L, cache.getStats().get("size"));
+	}
+
+	@Test
+	void countsHitsAndMisses() {
+		cache.put("token", principal(TimeUnit.MINUTES.toMillis(5)), AUTHORITIES);
+
+		cache.get("token");
+		cache.get("token");
+		cache.get("other");
+
+		Map<String, Object> stats = cache.getStats();
+		assertEquals(2L, stats.get("hits"));
+		assertEquals(1L, stats.get("misses"));
+		assertEquals(1L, stats.get("size"));
+		assertEquals(100L, stats.get("maxSize"));
+	}
+
+	private static JwtPrincipal principal(long validForMillis) {
+		return new JwtPrincipal("admin", "ADMIN", new Date(System.currentTimeMillis() + validForMillis));
+	}
+}
@@ -0,0 +1,31 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CustomerCursorTests {
+
+	@Test
+	void roundTripsNameCursorsContainingSeparators() {
+		ObjectId id = new ObjectId();
+		CustomerCursor cursor = CustomerCursor.decode(
+				new CustomerCursor(CustomerCursor.Sort.NAME, id, "Devi: R/S").encode());
+
+		assertEquals(CustomerCursor.Sort.NAME, cursor.getSort());
+		assertEquals(id, cursor.getLastId());
+		assertEquals("Devi: R/S", cursor.getLastName());
+
+		CustomerCursor byId = CustomerCursor.decode(new CustomerCursor(CustomerCursor.Sort.ID, id, "ignored").encode());
+		assertNull(byId.getLastName());
+	}
+
+	@Test
+	void rejectsTamperedCursors() {
+		assertThrows(IllegalArgumentException.class, () -> CustomerCursor.decode("not a cursor"));
+		assertThrows(IllegalArgumentException.class, () -> CustomerCursor.decode("SUQ6MTIz"));
+	}
+}
@@ -0,0 +1,165 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import com.rosebeauticare.rosebeauticare.DTO.CustomerImportReportDTO;
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerImportServiceTests {
+
+	private static final String HEADER = "name,phonenumber,alternatePhoneNumber,maritalstatus,gender,customerSince\n";
+
+	private final List<List<Customer>> written = new ArrayList<>();
+	private final List<BulkWriteError> writeErrors = new ArrayList<>();
+	private MongoTemplate mongoTemplate;
+	private MongoIndexManager indexManager;
+	private CustomerImportService service;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		BulkOperations bulk = mock(BulkOperations.class);
+		when(bulk.insert(anyList())).thenAnswer(invocation -> {
+			written.add(new ArrayList<>((List<Customer>) invocation.getArgument(0)));
+			return bulk;
+		});
+		when(bulk.execute()).thenAnswer(invocation -> {
+			if (!writeErrors.isEmpty()) {
+				throw new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+						BulkWriteResult.unacknowledged(), List.copyOf(writeErrors), null, new ServerAddress(), Set.of()));
+			}
+			return BulkWriteResult.unacknowledged();
+		});
+		mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Customer.class))).thenReturn(bulk);
+		indexManager = mock(MongoIndexManager.class);
+		when(indexManager.uniqueIndexesReady("customers")).thenReturn(true);
+
+		service = new CustomerImportService();
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "indexManager", indexManager);
+		ReflectionTestUtils.setField(service, "searchIndex", new CustomerSearchIndex());
+		ReflectionTestUtils.setField(service, "batchSize", 2);
+	}
+
+	@Test
+	void readsQuotedCsvRecordsAcrossLines() throws Exception {
+		BufferedReader reader = new BufferedReader(new StringReader(
+				"name,district\r\n\"Devi, R\",\"Line one\nsaid \"\"hi\"\"\"\nLakshmi,\n"));
+
+		assertEquals(List.of("name", "district"), CustomerImportService.readCsvRecord(reader));
+		assertEquals(List.of("Devi, R", "Line one\nsaid \"hi\""), CustomerImportService.readCsvRecord(reader));
+		assertEquals(List.of("Lakshmi", ""), CustomerImportService.readCsvRecord(reader));
+		assertNull(CustomerImportService.readCsvRecord(reader));
+	}
+
+	@Test
+	void claimRejectsValuesAlreadyUsedByAnEarlierRow() {
+		CustomerImportService.Run run = new CustomerImportService.Run();
+		run.claim(customer("Devi", "+919876543210", "+919876543211"), 1);
+
+		IllegalArgumentException name = assertThrows(IllegalArgumentException.class,
+				() -> run.claim(customer("Devi", "+919000000000", null), 2));
+		assertEquals("Name already exists in row 1", name.getMessage());
+		IllegalArgumentException alternate = assertThrows(IllegalArgumentException.class,
+				() -> run.claim(customer("Priya", "+919000000000", "+919876543211"), 3));
+		assertEquals("Alternate phone number already exists in row 1", alternate.getMessage());
+		// The unique indexes are per field: another customer's alternate number may be a primary number
+		assertDoesNotThrow(() -> run.claim(customer("Priya", "+919876543211", null), 4));
+		// A rejected row does not reserve its values
+		assertDoesNotThrow(() -> run.claim(customer("Anu", "+919000000000", null), 5));
+	}
+
+	@Test
+	void reportsValidationAndInBatchDuplicatesPerRow() throws Exception {
+		CustomerImportReportDTO report = importCsv(HEADER
+				+ "Devi,+919876543210,,married,female,2020-01-01\n"
+				+ "Priya,98765,,single,female,2020-01-01\n"
+				+ "Anu,+919876543210,,single,female,2020-01-01\n"
+				+ ",+919000000001,,single,female,2020-01-01\n"
+				+ "Meena,+919000000002,,single,female,01/02/2020\n"
+				+ "Kavya,+919000000003,,single,female,2021-06-30\n");
+
+		assertEquals(6, report.getReceived());
+		assertEquals(2, report.getInserted());
+		assertEquals(Map.of(
+				2L, CustomerValidation.PHONE_NUMBER_MESSAGE,
+				3L, "Phone number already exists in row 1",
+				4L, "Name is required",
+				5L, "Invalid date format for customerSince: 01/02/2020"), reasons(report));
+		assertEquals(List.of("Devi", "Kavya"), written.get(0).stream().map(Customer::getName).toList());
+	}
+
+	@Test
+	void mapsBulkWriteErrorsToTheViolatedField() throws Exception {
+		writeErrors.add(new BulkWriteError(11000, "E11000 duplicate key error collection: db.customers index: "
+				+ "name_unique dup key: { name: \"Devi\" }", new BsonDocument(), 1));
+		writeErrors.add(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0));
+
+		CustomerImportReportDTO report = importCsv(HEADER
+				+ "Anu,+919000000001,,single,female,2020-01-01\n"
+				+ "Devi,+919000000002,,single,female,2020-01-01\n");
+
+		assertEquals(0, report.getInserted());
+		assertEquals(Map.of(1L, "Document failed validation", 2L, "Name already exists"), reasons(report));
+	}
+
+	@Test
+	void refusesToImportWithoutTheUniqueIndexes() {
+		when(indexManager.uniqueIndexesReady("customers")).thenReturn(false);
+
+		assertThrows(IllegalStateException.class, () -> importCsv(HEADER));
+		verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Customer.class));
+	}
+
+	private CustomerImportReportDTO importCsv(String csv) throws Exception {
+		return service.importCustomers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+				ExportService.Format.CSV, false);
+	}
+
+	private static Map<Long, String> reasons(CustomerImportReportDTO report) {
+		Map<Long, String> reasons = new HashMap<>();
+		report.getRejected().forEach(rejected -> reasons.put(rejected.getRow(), rejected.getReason()));
+		return reasons;
+	}
+
+	private static Customer customer(String name, String phonenumber, String alternatePhoneNumber) {
+		Customer customer = new Customer();
+		customer.setName(name);
+		customer.setPhonenumber(phonenumber);
+		customer.setAlternatePhoneNumber(alternatePhoneNumber);
+		return customer;
+	}
+}
@@ -0,0 +1,70 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerSearchIndexTests {
+
+	private final CustomerSearchIndex index = new CustomerSearchIndex();
+
+	@BeforeEach
+	void setUp() {
+		index.put(customer("1", "Lakshmi Priya", "+919876543210"));
+		index.put(customer("2", "Priya Devi", "+919812345678"));
+		index.put(customer("3", "Anjali Rao", "+919900011122"));
+	}
+
+	@Test
+	void ranksFirstWordAndExactMatchesFirst() {
+		assertEquals(List.of("2", "1"), index.search("pri", CustomerSearchIndex.Field.ALL, 10));
+		assertEquals(List.of("1"), index.search("priya lak", CustomerSearchIndex.Field.NAME, 10));
+		assertEquals(List.of("2"), index.search("Priya", CustomerSearchIndex.Field.ALL, 1));
+	}
+
+	@Test
+	void matchesAnyPartOfAPhoneNumber() {
+		assertEquals(List.of("1"), index.search("987", CustomerSearchIndex.Field.PHONE, 10));
+		assertEquals(List.of("1"), index.search("543", CustomerSearchIndex.Field.ALL, 10));
+		assertEquals(List.of("3"), index.search("+91 99000 11122", CustomerSearchIndex.Field.PHONE, 10));
+		assertTrue(index.search("543", CustomerSearchIndex.Field.NAME, 10).isEmpty());
+	}
+
+	@Test
+	void ignoresPrefixesBelowTheMinimumLength() {
+		assertTrue(index.search("p", CustomerSearchIndex.Field.ALL, 10).isEmpty());
+		assertTrue(index.search("98", CustomerSearchIndex.Field.PHONE, 10).isEmpty());
+		assertEquals(List.of("1"), index.search("priya l", CustomerSearchIndex.Field.NAME, 10));
+	}
+
+	@Test
+	void keepsOnlyTheBestMatchesUpToTheLimit() {
+		index.put(customer("4", "Priyanka", "+919800000004"));
+		index.put(customer("5", "Priya", "+919800000005"));
+
+		assertEquals(List.of("5", "2"), index.search("priya", CustomerSearchIndex.Field.NAME, 2));
+		assertEquals(List.of("5", "2", "1", "4"), index.search("priya", CustomerSearchIndex.Field.NAME, 10));
+	}
+
+	@Test
+	void followsUpdatesAndDeletes() {
+		index.put(customer("1", "Kavya", "+919876543210"));
+		index.remove("2");
+
+		assertTrue(index.search("priya", CustomerSearchIndex.Field.ALL, 10).isEmpty());
+		assertEquals(List.of("1"), index.search("kav", CustomerSearchIndex.Field.ALL, 10));
+	}
+
+	private static Customer customer(String id, String name, String phonenumber) {
+		Customer customer = new Customer();
+		customer.setId(id);
+		customer.setName(name);
+		customer.setPhonenumber(phonenumber);
+		return customer;
+	}
+}
@@ -0,0 +1,48 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CustomerServiceTests {
+
+	@Test
+	void fallbackSearchMatchesTheQueryLiterallyAndCapsResults() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		CustomerService service = new CustomerService();
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "searchIndex", new CustomerSearchIndex());
+		ReflectionTestUtils.setField(service, "maxSearchResults", 20);
+
+		service.searchCustomersRealTime("(a+)+$", "name");
+		service.searchCustomersRealTime("98765 4", "phonenumber");
+
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(2)).find(queries.capture(), eq(Customer.class));
+		Query byName = queries.getAllValues().get(0);
+		assertEquals(20, byName.getLimit());
+		assertEquals(Pattern.quote("(a+)+$"), regexOf(byName, 0, "name"));
+		Query byPhone = queries.getAllValues().get(1);
+		assertEquals("^\\+91" + Pattern.quote("987654"), regexOf(byPhone, 0, "phonenumber"));
+		assertEquals("^\\+91" + Pattern.quote("987654"), regexOf(byPhone, 1, "alternatePhoneNumber"));
+	}
+
+	private static String regexOf(Query query, int clause, String field) {
+		List<?> clauses = (List<?>) query.getQueryObject().get("$or");
+		Object regex = ((Document) clauses.get(clause)).get(field);
+		return regex instanceof Pattern ? ((Pattern) regex).pattern() : String.valueOf(regex);
+	}
+}
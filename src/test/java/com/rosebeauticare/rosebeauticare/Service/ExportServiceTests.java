@@ -0,0 +1,61 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExportServiceTests {
+
+	@Test
+	void writesCsvWithNestedColumnsAndEscaping() throws Exception {
+		ObjectId id = new ObjectId();
+		Document customer = new Document("_id", id)
+				.append("name", "Devi, \"R\"")
+				.append("phonenumber", "+919876543210")
+				.append("address", new Document("district", "=SUM(A1)"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long count = ExportService.write(List.of(customer).iterator(), ExportService.Format.CSV,
+				List.of("id", "name", "phonenumber", "address.district", "gender"), out);
+
+		assertEquals(1, count);
+		assertEquals("id,name,phonenumber,address.district,gender\r\n"
+				+ id.toHexString() + ",\"Devi, \"\"R\"\"\",+919876543210,'=SUM(A1),\r\n",
+				out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void writesOneJsonDocumentPerLine() throws Exception {
+		ObjectId id = new ObjectId();
+		Document order = new Document("_id", id).append("_class", "com.rosebeauticare.rosebeauticare.Model.Order")
+				.append("customerName", "Devi")
+				.append("clothItems", List.of(new Document("serviceType", "blouse")));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		ExportService.write(List.of(order, new Document("_id", id)).iterator(), ExportService.Format.NDJSON, null, out);
+
+		assertEquals("{\"id\": \"" + id.toHexString() + "\", \"customerName\": \"Devi\", "
+				+ "\"clothItems\": [{\"serviceType\": \"blouse\"}]}\n"
+				+ "{\"id\": \"" + id.toHexString() + "\"}\n", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void neutralisesFormulasButNotNumbers() {
+		assertEquals("'+SUM(A1)", ExportService.csvValue("+SUM(A1)"));
+		assertEquals("'-2+3", ExportService.csvValue("-2+3"));
+		assertEquals("'@cmd", ExportService.csvValue("@cmd"));
+		assertEquals("'\tx", ExportService.csvValue("\tx"));
+		assertEquals("\"'\r=1\"", ExportService.csvValue("\r=1"));
+		assertEquals("+919876543210", ExportService.csvValue("+919876543210"));
+		assertEquals("-12.5", ExportService.csvValue(-12.5));
+		assertEquals("Devi", ExportService.csvValue("Devi"));
+		assertEquals("+SUM(A1)", ExportService.unescapeCsvValue(ExportService.csvValue("+SUM(A1)")));
+		assertEquals("'quoted'", ExportService.unescapeCsvValue("'quoted'"));
+	}
+}
@@ -0,0 +1,53 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileContentCacheTests {
+
+	private final FileContentCache cache = new FileContentCache(true, 1024, 100);
+
+	@Test
+	void loadsOnceAndServesDirectBuffersFromMemory() throws IOException {
+		byte[] content = { 1, 2, 3, 4, 5 };
+		GridFsFileDescriptor file = descriptor(content.length);
+		AtomicInteger loads = new AtomicInteger();
+		FileContentCache.StreamSource source = () -> {
+			loads.incrementAndGet();
+			return new ByteArrayInputStream(content);
+		};
+
+		ByteBuffer first = cache.get(file, source);
+		ByteBuffer second = cache.get(file, source);
+
+		assertEquals(1, loads.get());
+		assertTrue(first.isDirect());
+		byte[] read = new byte[second.remaining()];
+		second.get(read);
+		assertArrayEquals(content, read);
+		assertEquals(content.length, first.remaining());
+	}
+
+	@Test
+	void rejectsFilesOverTheEntryLimitAndShortReads() {
+		assertFalse(cache.accepts(descriptor(101)));
+		assertTrue(cache.accepts(descriptor(100)));
+		assertThrows(IOException.class, () -> cache.get(descriptor(10), () -> new ByteArrayInputStream(new byte[4])));
+	}
+
+	private static GridFsFileDescriptor descriptor(long length) {
+		return new GridFsFileDescriptor(new ObjectId(), "fs", "photo.jpg", "image/jpeg", length, 255 * 1024, new Date());
+	}
+}
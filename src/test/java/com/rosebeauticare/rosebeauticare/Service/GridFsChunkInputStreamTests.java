@@ -0,0 +1,147 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GridFsChunkInputStreamTests {
+
+	private static final int CHUNK_SIZE = 4;
+
+	private final byte[] content = new byte[10];
+	private final List<Document> storedChunks = new ArrayList<>();
+	private final AtomicInteger queries = new AtomicInteger();
+	private MongoCollection<Document> chunks;
+	private GridFsFileDescriptor file;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		ObjectId fileId = new ObjectId();
+		for (int n = 0; n * CHUNK_SIZE < content.length; n++) {
+			byte[] data = Arrays.copyOfRange(content, n * CHUNK_SIZE, Math.min(content.length, (n + 1) * CHUNK_SIZE));
+			storedChunks.add(new Document("files_id", fileId).append("n", n).append("data", new Binary(data)));
+		}
+		file = new GridFsFileDescriptor(fileId, "fs", "photo.jpg", "image/jpeg", content.length, CHUNK_SIZE, new Date());
+
+		chunks = mock(MongoCollection.class);
+		when(chunks.find(any(Bson.class))).thenAnswer(invocation -> {
+			queries.incrementAndGet();
+			BsonDocument filter = ((Bson) invocation.getArgument(0)).toBsonDocument();
+			int from = filter.getArray("$and").get(1).asDocument().getDocument("n").getInt32("$gte").getValue();
+			FindIterable<Document> iterable = mock(FindIterable.class);
+			when(iterable.sort(any())).thenReturn(iterable);
+			when(iterable.batchSize(anyInt())).thenReturn(iterable);
+			when(iterable.iterator()).thenReturn(new ListCursor(storedChunks.subList(from, storedChunks.size())));
+			return iterable;
+		});
+	}
+
+	@Test
+	void readsAllChunksInOrderWithOneQuery() throws IOException {
+		try (InputStream in = new GridFsChunkInputStream(chunks, file, 4)) {
+			assertArrayEquals(content, in.readAllBytes());
+		}
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	void skipSeeksToTheTargetChunk() throws IOException {
+		try (InputStream in = new GridFsChunkInputStream(chunks, file, 4)) {
+			assertEquals(9, in.skip(9));
+			assertEquals(9, in.read());
+			assertEquals(-1, in.read());
+		}
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	void rangeStartsAtTheChunkHoldingTheFirstByte() throws IOException {
+		try (InputStream in = new GridFsChunkInputStream(chunks, file, 4, 5, 9)) {
+			assertArrayEquals(Arrays.copyOfRange(content, 5, 9), in.readAllBytes());
+		}
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	void missingChunkFailsTheRead() {
+		storedChunks.remove(1);
+		assertThrows(IOException.class, () -> {
+			try (InputStream in = new GridFsChunkInputStream(chunks, file, 4)) {
+				in.readAllBytes();
+			}
+		});
+	}
+
+	private static class ListCursor implements MongoCursor<Document> {
+		private final Iterator<Document> iterator;
+
+		ListCursor(List<Document> documents) {
+			this.iterator = new ArrayList<>(documents).iterator();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+
+		@Override
+		public Document next() {
+			return iterator.next();
+		}
+
+		@Override
+		public int available() {
+			return 0;
+		}
+
+		@Override
+		public Document tryNext() {
+			return iterator.hasNext() ? iterator.next() : null;
+		}
+
+		@Override
+		public ServerCursor getServerCursor() {
+			return null;
+		}
+
+		@Override
+		public ServerAddress getServerAddress() {
+			return null;
+		}
+	}
+
+}
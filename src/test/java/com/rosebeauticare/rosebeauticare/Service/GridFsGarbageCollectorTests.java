@@ -0,0 +1,360 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Runs the collector against in-memory collections that understand the few filters it sends
+class GridFsGarbageCollectorTests {
+
+	private static final String BUCKET = FileCategory.ORDER_IMAGE.getBucket();
+	private static final Date OLD = new Date(0);
+
+	private final Map<String, List<Document>> collections = new HashMap<>();
+	private final List<ObjectId> deleted = new ArrayList<>();
+	private final List<BsonDocument> fileQueries = new ArrayList<>();
+	// Runs once, on the next find on the named collection
+	private final Map<String, Runnable> onFind = new HashMap<>();
+	private final GridFsGarbageCollector collector = new GridFsGarbageCollector();
+	private int nextId;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		// Stubbed up front: Mockito cannot stub new mocks from inside an answer
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		MongoDatabase database = mock(MongoDatabase.class);
+		when(database.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+		when(database.getCollection(anyString(), eq(BsonDocument.class))).thenReturn(mock(MongoCollection.class, RETURNS_SELF));
+		for (String bucket : GridFsService.BUCKETS) {
+			MongoCollection<Document> files = collection(bucket + ".files");
+			when(mongoTemplate.getCollection(bucket + ".files")).thenReturn(files);
+			MongoCollection<GridFSFile> gridFsFiles = gridFsFiles(collections.get(bucket + ".files"));
+			when(database.getCollection(bucket + ".files", GridFSFile.class)).thenReturn(gridFsFiles);
+		}
+		for (String name : List.of("staff", "orders", UploadSessionService.SESSIONS_COLLECTION)) {
+			MongoCollection<Document> collection = collection(name);
+			when(mongoTemplate.getCollection(name)).thenReturn(collection);
+		}
+		when(mongoTemplate.getDb()).thenReturn(database);
+		CacheManager cacheManager = mock(CacheManager.class);
+		when(cacheManager.getCache(anyString())).thenReturn(mock(Cache.class));
+		ReflectionTestUtils.setField(collector, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(collector, "cacheManager", cacheManager);
+		ReflectionTestUtils.setField(collector, "contentCache", mock(FileContentCache.class));
+		ReflectionTestUtils.setField(collector, "batchSize", 200);
+		ReflectionTestUtils.setField(collector, "batchPauseMs", 0L);
+		ReflectionTestUtils.setField(collector, "gracePeriodHours", 24L);
+	}
+
+	@Test
+	void pagesThroughTheFilesByIdInBatches() {
+		for (int i = 0; i < 5; i++) {
+			file(OLD, null);
+		}
+		ReflectionTestUtils.setField(collector, "batchSize", 2);
+
+		GridFsGcReport report = collector.run();
+
+		assertNull(report.getError());
+		assertEquals(5, report.getFilesScanned());
+		assertEquals(5, report.getFilesDeleted());
+		// Three pages of the files collection, each after the last id of the one before
+		List<BsonDocument> pages = fileQueries.stream().filter(query -> query.isEmpty()
+				|| query.containsKey("_id") && query.getDocument("_id").containsKey("$gt")).toList();
+		assertEquals(3, pages.size());
+		assertTrue(pages.get(0).isEmpty());
+		assertEquals(id(2), pages.get(1).getDocument("_id").getObjectId("$gt").getValue());
+		assertEquals(id(4), pages.get(2).getDocument("_id").getObjectId("$gt").getValue());
+	}
+
+	@Test
+	void keepsFilesReferencedByStaffAndOrders() {
+		ObjectId photo = file(OLD, null);
+		ObjectId document = file(OLD, null);
+		ObjectId image = file(OLD, null);
+		ObjectId orphan = file(OLD, null);
+		collections.get("staff").add(new Document("_id", "staff1")
+				.append("photo", photo.toHexString()).append("documentphoto", document.toHexString()));
+		collections.get("orders").add(new Document("_id", "order1")
+				.append("images", List.of(new Document("fileId", image.toHexString()))));
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(1, report.getFilesDeleted());
+		assertEquals(List.of(orphan), deleted);
+		assertEquals(0, report.getDanglingReferenceCount());
+	}
+
+	@Test
+	void leavesUnreferencedFilesAloneDuringTheGracePeriod() {
+		ObjectId recent = file(new Date(), null);
+		file(OLD, null);
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(1, report.getFilesWithinGracePeriod());
+		assertEquals(1, report.getFilesDeleted());
+		assertFalse(deleted.contains(recent));
+	}
+
+	@Test
+	void keepsFilesHandedOutByACompletedUploadSession() {
+		ObjectId held = file(OLD, null);
+		ObjectId expired = file(OLD, null);
+		ObjectId completing = file(OLD, null);
+		Date tomorrow = new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000);
+		List<Document> sessions = collections.get(UploadSessionService.SESSIONS_COLLECTION);
+		sessions.add(new Document("_id", "session1").append("fileId", held.toHexString())
+				.append("status", "COMPLETE").append("expiresAt", tomorrow));
+		sessions.add(new Document("_id", "session2").append("fileId", expired.toHexString())
+				.append("status", "COMPLETE").append("expiresAt", OLD));
+		sessions.add(new Document("_id", "session3").append("fileId", completing.toHexString())
+				.append("status", "COMPLETING").append("expiresAt", tomorrow));
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(List.of(expired, completing), deleted);
+		assertEquals(2, report.getFilesDeleted());
+	}
+
+	@Test
+	void startsTheGracePeriodAgainWhenAFileIsReused() {
+		ObjectId reused = file(OLD, new Document("lastUsedAt", new Date()));
+		ObjectId unused = file(OLD, new Document("lastUsedAt", OLD));
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(1, report.getFilesWithinGracePeriod());
+		assertEquals(List.of(unused), deleted);
+		assertFalse(deleted.contains(reused));
+	}
+
+	@Test
+	void keepsAFileReusedWhileTheRunIsInProgress() {
+		ObjectId reused = file(OLD, null);
+		ObjectId orphan = file(OLD, null);
+		// A direct upload deduplicates onto the file after the batch was read
+		onFind.put("staff", () -> collections.get(BUCKET + ".files").get(0).append("metadata",
+				new Document("refCount", 1).append("owners", List.of("order1")).append("lastUsedAt", new Date())));
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(List.of(orphan), deleted);
+		assertEquals(1, report.getFilesDeleted());
+		assertFalse(deleted.contains(reused));
+	}
+
+	@Test
+	void dryRunReportsWithoutDeleting() {
+		file(OLD, null);
+		file(OLD, null);
+		ReflectionTestUtils.setField(collector, "dryRun", true);
+
+		GridFsGcReport report = collector.run();
+
+		assertTrue(report.isDryRun());
+		assertEquals(2, report.getFilesDeleted());
+		assertTrue(deleted.isEmpty());
+		assertEquals(2, collections.get(BUCKET + ".files").size());
+	}
+
+	@Test
+	void derivativesAndKeptOriginalsGoWithTheirFile() {
+		ObjectId kept = file(OLD, null);
+		ObjectId orphan = file(OLD, null);
+		ObjectId keptThumbnail = file(OLD, new Document("derivativeOf", kept));
+		ObjectId orphanThumbnail = file(OLD, new Document("derivativeOf", orphan));
+		ObjectId orphanUpload = file(OLD, new Document("originalOf", orphan));
+		ObjectId parentless = file(OLD, new Document("derivativeOf", new ObjectId()));
+		collections.get("orders").add(new Document("_id", "order1")
+				.append("images", List.of(new Document("fileId", kept.toHexString()))));
+		// The orphan and its derivatives land in different batches
+		ReflectionTestUtils.setField(collector, "batchSize", 3);
+
+		GridFsGcReport report = collector.run();
+
+		assertEquals(1, report.getFilesDeleted());
+		assertEquals(3, report.getDerivativesDeleted());
+		assertEquals(List.of(orphan, orphanThumbnail, orphanUpload, parentless), deleted);
+		assertFalse(deleted.contains(kept) || deleted.contains(keptThumbnail));
+	}
+
+	private ObjectId file(Date uploadDate, Document metadata) {
+		ObjectId id = id(++nextId);
+		Document file = new Document("_id", id).append("uploadDate", uploadDate);
+		if (metadata != null) {
+			file.append("metadata", metadata);
+		}
+		collections.get(BUCKET + ".files").add(file);
+		return id;
+	}
+
+	private static ObjectId id(int n) {
+		return new ObjectId(String.format("%024x", n));
+	}
+
+	@SuppressWarnings("unchecked")
+	private MongoCollection<Document> collection(String name) {
+		List<Document> documents = new ArrayList<>();
+		collections.put(name, documents);
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		when(collection.find(any(Bson.class))).thenAnswer(invocation -> {
+			Runnable hook = onFind.remove(name);
+			if (hook != null) {
+				hook.run();
+			}
+			BsonDocument filter = toBson(invocation.getArgument(0));
+			if (name.equals(BUCKET + ".files")) {
+				fileQueries.add(filter);
+			}
+			List<Document> matched = new ArrayList<>();
+			for (Document document : documents) {
+				if (matches(toBson(document), filter)) {
+					matched.add(document);
+				}
+			}
+			return found(matched);
+		});
+		return collection;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static FindIterable<Document> found(List<Document> documents) {
+		FindIterable<Document> found = mock(FindIterable.class, RETURNS_SELF);
+		int[] limit = { Integer.MAX_VALUE };
+		when(found.limit(anyInt())).thenAnswer(invocation -> {
+			limit[0] = invocation.getArgument(0);
+			return found;
+		});
+		when(found.into(any())).thenAnswer(invocation -> {
+			Collection<Document> target = invocation.getArgument(0);
+			target.addAll(documents.subList(0, Math.min(limit[0], documents.size())));
+			return target;
+		});
+		doAnswer(invocation -> {
+			documents.forEach(invocation.<Consumer<Document>>getArgument(0));
+			return null;
+		}).when(found).forEach(any());
+		return found;
+	}
+
+	// The files collection GridFSBucket.delete writes to: deleting a file removes it from the in-memory one
+	@SuppressWarnings("unchecked")
+	private MongoCollection<GridFSFile> gridFsFiles(List<Document> files) {
+		MongoCollection<GridFSFile> collection = mock(MongoCollection.class, RETURNS_SELF);
+		when(collection.deleteOne(any(Bson.class))).thenAnswer(invocation -> {
+			ObjectId id = toBson(invocation.getArgument(0)).getObjectId("_id").getValue();
+			deleted.add(id);
+			files.removeIf(file -> file.getObjectId("_id").equals(id));
+			return DeleteResult.acknowledged(1);
+		});
+		return collection;
+	}
+
+	private static BsonDocument toBson(Bson bson) {
+		return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+	}
+
+	private static boolean matches(BsonDocument document, BsonDocument filter) {
+		for (Map.Entry<String, BsonValue> condition : filter.entrySet()) {
+			if (condition.getKey().equals("$and")) {
+				if (!condition.getValue().asArray().stream().allMatch(clause -> matches(document, clause.asDocument()))) {
+					return false;
+				}
+				continue;
+			}
+			if (condition.getKey().equals("$or")) {
+				if (condition.getValue().asArray().stream().noneMatch(clause -> matches(document, clause.asDocument()))) {
+					return false;
+				}
+				continue;
+			}
+			List<BsonValue> values = new ArrayList<>();
+			collect(document, condition.getKey().split("\\."), 0, values);
+			boolean matched = matches(values, condition.getValue());
+			if (!matched) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(List<BsonValue> values, BsonValue expected) {
+		if (!expected.isDocument() || !expected.asDocument().getFirstKey().startsWith("$")) {
+			return values.contains(expected);
+		}
+		for (Map.Entry<String, BsonValue> operator : expected.asDocument().entrySet()) {
+			BsonValue operand = operator.getValue();
+			boolean matched = switch (operator.getKey()) {
+				case "$in" -> values.stream().anyMatch(operand.asArray()::contains);
+				case "$gt" -> values.stream().anyMatch(value -> compare(value, operand) > 0);
+				case "$not" -> !matches(values, operand);
+				default -> throw new UnsupportedOperationException(operator.getKey());
+			};
+			if (!matched) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Only values of the same type compare; others never match, as in a query
+	private static int compare(BsonValue value, BsonValue bound) {
+		if (value.isObjectId() && bound.isObjectId()) {
+			return value.asObjectId().getValue().compareTo(bound.asObjectId().getValue());
+		}
+		if (value.isDateTime() && bound.isDateTime()) {
+			return Long.compare(value.asDateTime().getValue(), bound.asDateTime().getValue());
+		}
+		if (value.isNumber() && bound.isNumber()) {
+			return Double.compare(value.asNumber().doubleValue(), bound.asNumber().doubleValue());
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	private static void collect(BsonValue value, String[] path, int index, List<BsonValue> values) {
+		if (index == path.length) {
+			values.add(value);
+		} else if (value.isArray()) {
+			value.asArray().forEach(element -> collect(element, path, index, values));
+		} else if (value.isDocument() && value.asDocument().containsKey(path[index])) {
+			collect(value.asDocument().get(path[index]), path, index + 1, values);
+		}
+	}
+}
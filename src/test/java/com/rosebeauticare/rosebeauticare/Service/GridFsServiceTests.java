@@ -0,0 +1,112 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.rosebeauticare.rosebeauticare.Config.MongoIndexManager;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GridFsServiceTests {
+
+	private final ObjectId fileId = new ObjectId();
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final GridFsService service = new GridFsService();
+	@SuppressWarnings("unchecked")
+	private final MongoCollection<Document> files = mock(MongoCollection.class);
+	@SuppressWarnings("unchecked")
+	private final MongoCollection<Document> sessions = mock(MongoCollection.class);
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		for (String bucket : GridFsService.BUCKETS) {
+			when(mongoTemplate.getCollection(bucket + ".files")).thenReturn(files);
+		}
+		when(mongoTemplate.getCollection(UploadSessionService.SESSIONS_COLLECTION)).thenReturn(sessions);
+		// describe() finds the file, unowned once the release has dropped its last reference
+		Document file = new Document("_id", fileId).append("_bucket", FileCategory.ORDER_IMAGE.getBucket())
+				.append("filename", "photo.jpg").append("length", 10L).append("chunkSize", 4)
+				.append("uploadDate", new Date(0)).append("metadata", new Document("refCount", 0));
+		AggregateIterable<Document> described = mock(AggregateIterable.class);
+		when(described.first()).thenReturn(file);
+		when(files.aggregate(anyList())).thenReturn(described);
+		when(files.updateOne(any(Bson.class), any(Bson.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+		FindIterable<Document> unowned = mock(FindIterable.class, RETURNS_SELF);
+		when(unowned.first()).thenReturn(file);
+		when(files.find(any(Bson.class))).thenReturn(unowned);
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "missingFiles", mock(MissingFileCache.class));
+		ReflectionTestUtils.setField(service, "contentCache", mock(FileContentCache.class));
+		ReflectionTestUtils.setField(service, "indexManager", mock(MongoIndexManager.class));
+	}
+
+	@Test
+	void reusingAFileRestartsItsGracePeriod() throws IOException {
+		// The hash lookup finds the existing file
+		String reused = service.storeUpload(new byte[] { 1, 2, 3 }, "photo.jpg", "image/jpeg", FileCategory.ORDER_IMAGE);
+
+		assertEquals(fileId.toHexString(), reused);
+		ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+		verify(files).updateOne(any(Bson.class), update.capture());
+		assertTrue(update.getValue().toBsonDocument().getDocument("$set").isDateTime("metadata.lastUsedAt"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void discardKeepsAFileACompletedUploadSessionHandsOut() {
+		FindIterable<Document> held = mock(FindIterable.class, RETURNS_SELF);
+		when(held.first()).thenReturn(new Document("_id", "session1").append("fileId", fileId.toHexString()));
+		when(sessions.find(any(Bson.class))).thenReturn(held);
+
+		service.discardFile(fileId.toHexString(), "order1");
+
+		// Deleting goes through a GridFSBucket, which is never created
+		verify(mongoTemplate, never()).getDb();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void discardDeletesAnUnownedFileNoSessionHandsOut() {
+		FindIterable<Document> none = mock(FindIterable.class, RETURNS_SELF);
+		when(sessions.find(any(Bson.class))).thenReturn(none);
+		MongoDatabase database = mock(MongoDatabase.class);
+		MongoCollection<GridFSFile> gridFsFiles = mock(MongoCollection.class, RETURNS_SELF);
+		when(gridFsFiles.deleteOne(any(Bson.class))).thenReturn(DeleteResult.acknowledged(1));
+		when(database.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+		when(database.getCollection(anyString(), eq(GridFSFile.class))).thenReturn(gridFsFiles);
+		when(database.getCollection(anyString(), eq(BsonDocument.class))).thenReturn(mock(MongoCollection.class, RETURNS_SELF));
+		when(mongoTemplate.getDb()).thenReturn(database);
+
+		service.discardFile(fileId.toHexString(), "order1");
+
+		verify(gridFsFiles).deleteOne(any(Bson.class));
+	}
+}
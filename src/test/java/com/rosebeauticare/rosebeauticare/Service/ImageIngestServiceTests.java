@@ -0,0 +1,76 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageIngestServiceTests {
+
+	private final ImageIngestService service = new ImageIngestService(true, 100, 0.85f, Long.MAX_VALUE, false, 1);
+
+	@Test
+	void storesAnUprightJpegThatFitsAsIs() throws IOException {
+		byte[] jpeg = ImageProcessor.encode(noise(80, 60), ImageProcessor.JPEG, 0.95f);
+
+		assertNull(service.process(jpeg, ImageProcessor.JPEG));
+	}
+
+	@Test
+	void removesExifFromAJpegStoredAsUploaded() throws IOException {
+		byte[] jpeg = ImageProcessor.encode(noise(80, 60), ImageProcessor.JPEG, 0.95f);
+
+		ImageIngestService.Processed processed = service.process(ImageProcessorTests.withExifOrientation(jpeg, 1),
+				ImageProcessor.JPEG);
+
+		assertNotNull(processed);
+		assertArrayEquals(jpeg, processed.getData());
+		assertFalse(new String(processed.getData(), StandardCharsets.ISO_8859_1).contains("Exif"));
+		assertEquals(80, processed.getWidth());
+	}
+
+	@Test
+	void downscalesAnOversizedJpeg() throws IOException {
+		byte[] jpeg = ImageProcessor.encode(noise(400, 200), ImageProcessor.JPEG, 0.95f);
+
+		ImageIngestService.Processed processed = service.process(jpeg, ImageProcessor.JPEG);
+
+		assertNotNull(processed);
+		assertEquals(100, processed.getWidth());
+		assertEquals(50, processed.getHeight());
+		assertTrue(processed.getData().length < jpeg.length);
+	}
+
+	@Test
+	void keepsTheUploadWhenTheReencodeIsNotSmaller() throws IOException {
+		// Black and white noise: a few bits a pixel as a GIF, far more as a JPEG
+		BufferedImage bilevel = new BufferedImage(50, 50, BufferedImage.TYPE_BYTE_BINARY);
+		bilevel.getGraphics().drawImage(noise(50, 50), 0, 0, null);
+		ByteArrayOutputStream gif = new ByteArrayOutputStream();
+		ImageIO.write(bilevel, "gif", gif);
+
+		assertNull(service.process(gif.toByteArray(), "image/gif"));
+	}
+
+	private static BufferedImage noise(int width, int height) {
+		Random random = new Random(1);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				image.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+		return image;
+	}
+}
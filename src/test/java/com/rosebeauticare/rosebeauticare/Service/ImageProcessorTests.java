@@ -0,0 +1,75 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageProcessorTests {
+
+	@Test
+	void decodeAppliesExifRotation() throws IOException {
+		byte[] jpeg = ImageProcessor.encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), ImageProcessor.JPEG, 0.8f);
+		byte[] rotated = withExifOrientation(jpeg, 6);
+
+		assertEquals(6, ImageProcessor.readExifOrientation(rotated));
+		BufferedImage image = ImageProcessor.decode(rotated, Long.MAX_VALUE);
+		assertEquals(20, image.getWidth());
+		assertEquals(40, image.getHeight());
+	}
+
+	@Test
+	void decodeRejectsImagesOverThePixelLimit() throws IOException {
+		byte[] png = ImageProcessor.encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB), ImageProcessor.PNG, 0.8f);
+		assertNull(ImageProcessor.decode(png, 799));
+		assertNull(ImageProcessor.decode("not an image".getBytes(), Long.MAX_VALUE));
+	}
+
+	@Test
+	void scaleToFitKeepsAspectRatio() {
+		BufferedImage scaled = ImageProcessor.scaleToFit(new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB), 160);
+		assertEquals(160, scaled.getWidth());
+		assertEquals(120, scaled.getHeight());
+	}
+
+	@Test
+	void stripMetadataRemovesExifAndKeepsTheImageData() throws IOException {
+		byte[] jpeg = ImageProcessor.encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), ImageProcessor.JPEG, 0.8f);
+		assertArrayEquals(jpeg, ImageProcessor.stripMetadata(withExifOrientation(jpeg, 1), ImageProcessor.JPEG));
+
+		byte[] png = ImageProcessor.encode(new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB), ImageProcessor.PNG, 0.8f);
+		// An eXIf chunk right after IHDR (8-byte signature, 25-byte IHDR chunk); the CRC is not checked
+		ByteArrayOutputStream withExif = new ByteArrayOutputStream();
+		withExif.write(png, 0, 33);
+		withExif.writeBytes(new byte[] { 0, 0, 0, 2, 'e', 'X', 'I', 'f', 'M', 'M', 0, 0, 0, 0 });
+		withExif.write(png, 33, png.length - 33);
+		assertArrayEquals(png, ImageProcessor.stripMetadata(withExif.toByteArray(), ImageProcessor.PNG));
+
+		assertNull(ImageProcessor.stripMetadata("not an image".getBytes(), ImageProcessor.JPEG));
+	}
+
+	// Inserts a big-endian APP1 Exif segment with a single orientation entry right after SOI
+	static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+		byte[] tiff = {
+				'M', 'M', 0, 42, 0, 0, 0, 8,
+				0, 1,
+				0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+				0, 0, 0, 0 };
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(jpeg, 0, 2);
+		int length = 2 + 6 + tiff.length;
+		out.write(0xFF);
+		out.write(0xE1);
+		out.write(length >> 8);
+		out.write(length & 0xFF);
+		out.writeBytes(new byte[] { 'E', 'x', 'i', 'f', 0, 0 });
+		out.writeBytes(tiff);
+		out.write(jpeg, 2, jpeg.length - 2);
+		return out.toByteArray();
+	}
+}
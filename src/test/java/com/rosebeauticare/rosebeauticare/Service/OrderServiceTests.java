@@ -0,0 +1,149 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.rosebeauticare.rosebeauticare.Model.Customer;
+import com.rosebeauticare.rosebeauticare.Model.Order;
+import com.rosebeauticare.rosebeauticare.Model.Staff;
+import com.rosebeauticare.rosebeauticare.Repository.CustomerRepository;
+import com.rosebeauticare.rosebeauticare.Repository.OrderRepository;
+import com.rosebeauticare.rosebeauticare.Repository.StaffRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTests {
+
+	private OrderRepository orderRepository;
+	private GridFsService gridFsService;
+	private UploadSessionService uploadSessionService;
+	private OrderService service;
+
+	@BeforeEach
+	void setUp() {
+		orderRepository = mock(OrderRepository.class);
+		gridFsService = mock(GridFsService.class);
+		uploadSessionService = mock(UploadSessionService.class);
+		CustomerRepository customerRepository = mock(CustomerRepository.class);
+		StaffRepository staffRepository = mock(StaffRepository.class);
+		Customer customer = new Customer();
+		customer.setName("Customer");
+		when(customerRepository.findById("customer")).thenReturn(Optional.of(customer));
+		Staff staff = new Staff();
+		staff.setName("Staff");
+		when(staffRepository.findById("staff")).thenReturn(Optional.of(staff));
+		when(orderRepository.insert(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		service = new OrderService();
+		ReflectionTestUtils.setField(service, "orderRepository", orderRepository);
+		ReflectionTestUtils.setField(service, "customerRepository", customerRepository);
+		ReflectionTestUtils.setField(service, "staffRepository", staffRepository);
+		ReflectionTestUtils.setField(service, "gridFsService", gridFsService);
+		ReflectionTestUtils.setField(service, "uploadSessionService", uploadSessionService);
+		ReflectionTestUtils.setField(service, "uploadExecutor", (Executor) Runnable::run);
+	}
+
+	@Test
+	void storesEveryImageUnderThePreallocatedOrderId() throws IOException {
+		MultipartFile first = image("first.png");
+		MultipartFile second = image("second.png");
+		when(gridFsService.storeFile(same(first), eq(FileCategory.ORDER_IMAGE), anyString())).thenReturn("file-1");
+		when(gridFsService.storeFile(same(second), eq(FileCategory.ORDER_IMAGE), anyString())).thenReturn("file-2");
+
+		Order saved = service.createOrder(order(), List.of(first, second));
+
+		assertNotNull(saved.getId());
+		ArgumentCaptor<String> owners = ArgumentCaptor.forClass(String.class);
+		verify(gridFsService, times(2)).storeFile(any(), eq(FileCategory.ORDER_IMAGE), owners.capture());
+		assertEquals(List.of(saved.getId(), saved.getId()), owners.getAllValues());
+		assertEquals(List.of(new Order.Image("file-1", "image/png"), new Order.Image("file-2", "image/png")),
+				saved.getImages());
+	}
+
+	@Test
+	void discardsWrittenImagesWhenAnotherImageFails() throws IOException {
+		MultipartFile first = image("first.png");
+		MultipartFile second = image("second.png");
+		when(gridFsService.storeFile(same(first), eq(FileCategory.ORDER_IMAGE), anyString())).thenReturn("file-1");
+		when(gridFsService.storeFile(same(second), eq(FileCategory.ORDER_IMAGE), anyString()))
+				.thenThrow(new IOException("write failed"));
+
+		IOException failure = assertThrows(IOException.class,
+				() -> service.createOrder(order(), List.of(first, second), List.of("uploaded")));
+
+		assertEquals("write failed", failure.getMessage());
+		verify(gridFsService).discardFile(eq("file-1"), anyString());
+		verify(uploadSessionService, never()).claim(anyString(), any(), anyString());
+		verify(orderRepository, never()).insert(any(Order.class));
+	}
+
+	@Test
+	void releasesClaimedImagesWhenALaterClaimFails() throws IOException {
+		MultipartFile file = image("first.png");
+		when(gridFsService.storeFile(same(file), eq(FileCategory.ORDER_IMAGE), anyString())).thenReturn("file-1");
+		when(uploadSessionService.claim(eq("uploaded-1"), eq(FileCategory.ORDER_IMAGE), anyString()))
+				.thenReturn(null);
+		when(uploadSessionService.claim(eq("uploaded-2"), eq(FileCategory.ORDER_IMAGE), anyString()))
+				.thenThrow(new IllegalStateException("File is already in use"));
+
+		assertThrows(IllegalStateException.class,
+				() -> service.createOrder(order(), List.of(file), List.of("uploaded-1", "uploaded-2")));
+
+		ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+		verify(gridFsService).discardFile(eq("file-1"), owner.capture());
+		verify(gridFsService).releaseFile("uploaded-1", owner.getValue());
+		verify(gridFsService, never()).releaseFile(eq("uploaded-2"), anyString());
+		verify(orderRepository, never()).insert(any(Order.class));
+	}
+
+	@Test
+	void rollsBackStoredAndClaimedImagesWhenTheInsertFails() throws IOException {
+		MultipartFile file = image("first.png");
+		when(gridFsService.storeFile(same(file), eq(FileCategory.ORDER_IMAGE), anyString())).thenReturn("file-1");
+		when(orderRepository.insert(any(Order.class))).thenThrow(new IllegalStateException("insert failed"));
+
+		assertThrows(IllegalStateException.class,
+				() -> service.createOrder(order(), List.of(file), List.of("uploaded")));
+
+		ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+		verify(uploadSessionService).claim(eq("uploaded"), eq(FileCategory.ORDER_IMAGE), owner.capture());
+		verify(gridFsService).discardFile("file-1", owner.getValue());
+		verify(gridFsService).releaseFile("uploaded", owner.getValue());
+	}
+
+	private static MultipartFile image(String name) {
+		return new MockMultipartFile("images", name, "image/png", new byte[] { 1, 2, 3 });
+	}
+
+	private static Order order() {
+		Order order = new Order();
+		order.setCustomerId("customer");
+		order.setStaffId("staff");
+		order.setOrderDate(LocalDate.now());
+		order.setDueDate(LocalDate.now().plusDays(7));
+		order.setClothItems(List.of(new Order.ClothItem("Tailoring", "Leganga",
+				new Order.Customization("Normal", Map.of()))));
+		return order;
+	}
+}
@@ -0,0 +1,57 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StaffUsernamesTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void backfillsWithTheSameRuleAsLookups() {
+		List<Document> staff = List.of(
+				new Document("_id", "1").append("username", "ÇAĞRI"),
+				new Document("_id", "2").append("username", "Priya").append("usernameNormalized", "priya"),
+				// Written by a $toLower backfill, which leaves non-ASCII letters alone
+				new Document("_id", "3").append("username", "ÉLODIE").append("usernameNormalized", "Élodie"));
+		FindIterable<Document> found = mock(FindIterable.class);
+		when(found.projection(any())).thenReturn(found);
+		doAnswer(invocation -> {
+			staff.forEach(invocation.<Consumer<Document>>getArgument(0));
+			return null;
+		}).when(found).forEach(any(Consumer.class));
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		when(collection.find(any(Bson.class))).thenReturn(found);
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.getCollection("staff")).thenReturn(collection);
+		StaffUsernames usernames = new StaffUsernames();
+		ReflectionTestUtils.setField(usernames, "mongoTemplate", mongoTemplate);
+
+		usernames.backfill();
+
+		ArgumentCaptor<Bson> updates = ArgumentCaptor.forClass(Bson.class);
+		verify(collection, times(2)).updateOne(any(Bson.class), updates.capture());
+		assertEquals(List.of(StaffUsernames.normalize("ÇAĞRI"), StaffUsernames.normalize("ÉLODIE")),
+				updates.getAllValues().stream()
+						.map(update -> update.toBsonDocument().getDocument("$set").getString("usernameNormalized").getValue())
+						.toList());
+		assertEquals("élodie", StaffUsernames.normalize("ÉLODIE"));
+	}
+}
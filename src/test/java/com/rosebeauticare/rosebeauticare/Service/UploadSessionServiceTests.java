@@ -0,0 +1,197 @@
+package com.rosebeauticare.rosebeauticare.Service;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.result.UpdateResult;
+import com.rosebeauticare.rosebeauticare.DTO.UploadSessionDTO;
+import com.rosebeauticare.rosebeauticare.Model.UploadSession;
+import com.rosebeauticare.rosebeauticare.Repository.UploadSessionRepository;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UploadSessionServiceTests {
+
+	private static final String USER = "alice";
+	private static final String SESSION_ID = "session1";
+
+	private final UploadSessionRepository repository = mock(UploadSessionRepository.class);
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final GridFsService gridFsService = mock(GridFsService.class);
+	@SuppressWarnings("unchecked")
+	private final MongoCollection<Document> chunks = mock(MongoCollection.class);
+	private final UploadSessionService service = new UploadSessionService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "uploadSessionRepository", repository);
+		ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(service, "gridFsService", gridFsService);
+		ReflectionTestUtils.setField(service, "completingTimeoutMinutes", 10L);
+		when(mongoTemplate.getCollection(UploadSessionService.CHUNKS_COLLECTION)).thenReturn(chunks);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(USER, null));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void putChunkChecksTheIndexAndLength() {
+		// 10 bytes in chunks of 4: the last chunk is 2 bytes
+		UploadSession session = session(UploadSession.OPEN, Set.of());
+		when(repository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		assertThrows(IllegalArgumentException.class, () -> service.putChunk(SESSION_ID, -1, new byte[4]));
+		assertThrows(IllegalArgumentException.class, () -> service.putChunk(SESSION_ID, 3, new byte[4]));
+		assertThrows(IllegalArgumentException.class, () -> service.putChunk(SESSION_ID, 0, new byte[3]));
+		assertThrows(IllegalArgumentException.class, () -> service.putChunk(SESSION_ID, 2, new byte[4]));
+
+		UploadSessionDTO status = service.putChunk(SESSION_ID, 2, new byte[2]);
+		assertEquals(List.of(0, 1), status.getMissingChunks());
+	}
+
+	@Test
+	void completeReportsMissingChunks() {
+		when(repository.findById(SESSION_ID)).thenReturn(Optional.of(session(UploadSession.OPEN, Set.of(0, 2))));
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.complete(SESSION_ID));
+
+		assertEquals("Upload session is missing chunks [1]", e.getMessage());
+		verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+				any(FindAndModifyOptions.class), eq(UploadSession.class));
+	}
+
+	@Test
+	void completeIsIdempotent() throws IOException {
+		UploadSession session = session(UploadSession.COMPLETE, Set.of(0, 1, 2));
+		session.setFileId("file1");
+		when(repository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+
+		assertEquals("file1", service.complete(SESSION_ID).getFileId());
+		assertEquals("file1", service.complete(SESSION_ID).getFileId());
+		verifyNoInteractions(gridFsService);
+	}
+
+	@Test
+	void completeDoesNotInterruptACompletionInProgress() {
+		UploadSession session = session(UploadSession.COMPLETING, Set.of(0, 1, 2));
+		session.setCompletingAt(new Date());
+		when(repository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+
+		assertThrows(IllegalStateException.class, () -> service.complete(SESSION_ID));
+		assertThrows(IllegalStateException.class, () -> service.abort(SESSION_ID));
+		verifyNoInteractions(gridFsService);
+	}
+
+	@Test
+	void retryTakesOverACompletionLeftUnfinished() throws IOException {
+		UploadSession session = session(UploadSession.COMPLETING, Set.of(0, 1, 2));
+		session.setCompletingAt(new Date(System.currentTimeMillis() - 60 * 60 * 1000));
+		when(repository.findById(SESSION_ID)).thenReturn(Optional.of(session));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(UploadSession.class))).thenReturn(session(UploadSession.COMPLETING, Set.of(0, 1, 2)));
+		stageChunks(new byte[4], new byte[4], new byte[2]);
+		when(gridFsService.storeUpload(any(byte[].class), anyString(), anyString(), eq(FileCategory.ORDER_IMAGE)))
+				.thenReturn("file1");
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UploadSession.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		UploadSessionDTO completed = service.complete(SESSION_ID);
+
+		assertEquals(UploadSession.COMPLETE, completed.getStatus());
+		assertEquals("file1", completed.getFileId());
+		ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class),
+				eq(UploadSession.class));
+		assertTrue(claim.getValue().getQueryObject().toJson().contains("completingAt"));
+		verify(chunks).deleteMany(any(Bson.class));
+	}
+
+	@Test
+	void claimChecksTheUploaderAndCategory() {
+		String fileId = new ObjectId().toHexString();
+		UploadSession session = session(UploadSession.COMPLETE, Set.of(0, 1, 2));
+		session.setFileId(fileId);
+		when(repository.findFirstByFileIdAndCreatedByAndStatus(fileId, USER, UploadSession.COMPLETE))
+				.thenReturn(Optional.of(session));
+
+		assertThrows(IllegalArgumentException.class, () -> service.checkClaimable("not-an-id", FileCategory.ORDER_IMAGE));
+		assertThrows(IllegalArgumentException.class,
+				() -> service.checkClaimable(new ObjectId().toHexString(), FileCategory.ORDER_IMAGE));
+		IllegalArgumentException wrongCategory = assertThrows(IllegalArgumentException.class,
+				() -> service.checkClaimable(fileId, FileCategory.STAFF_PHOTO));
+		assertTrue(wrongCategory.getMessage().contains("staff_photo"));
+
+		service.claim(fileId, FileCategory.ORDER_IMAGE, "order1");
+		verify(gridFsService).claimFile(fileId, "order1");
+	}
+
+	private static UploadSession session(String status, Set<Integer> received) {
+		UploadSession session = new UploadSession();
+		session.setId(SESSION_ID);
+		session.setCategory(FileCategory.ORDER_IMAGE.name());
+		session.setFilename("photo.jpg");
+		session.setContentType("image/jpeg");
+		session.setSize(10);
+		session.setChunkSize(4);
+		session.setTotalChunks(3);
+		session.setReceivedChunks(new HashSet<>(received));
+		session.setStatus(status);
+		session.setCreatedBy(USER);
+		return session;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void stageChunks(byte[]... data) {
+		List<Document> documents = new ArrayList<>();
+		for (int i = 0; i < data.length; i++) {
+			documents.add(new Document("n", i).append("data", new Binary(data[i])));
+		}
+		Iterator<Document> iterator = documents.iterator();
+		FindIterable<Document> found = mock(FindIterable.class);
+		MongoCursor<Document> cursor = mock(MongoCursor.class);
+		when(chunks.find(any(Bson.class))).thenReturn(found);
+		when(found.sort(any(Bson.class))).thenReturn(found);
+		when(found.iterator()).thenReturn(cursor);
+		when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+		when(cursor.next()).thenAnswer(invocation -> iterator.next());
+	}
+}